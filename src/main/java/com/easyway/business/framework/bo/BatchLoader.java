@@ -0,0 +1,106 @@
+package com.easyway.business.framework.bo;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.easyway.business.framework.pojo.BasePojo;
+
+/**
+ * 按主键批量加载，收集一次请求内的多次{@link #load(Serializable)}，在{@link #dispatch()}时合并为一次
+ * {@link SchBo#getAllAsMap(Collection)}查询
+ * <p>
+ * 同一主键只查询一次，结果在加载器内缓存；不存在的记录以null完成。加载器只在一次请求内使用，非线程安全
+ * </p>
+ *
+ * <pre>
+ * BatchLoader&lt;User&gt; loader = userBo.newBatchLoader();
+ * for (Order order : orders) {
+ *     loader.load(order.getUserId()).thenAccept(order::setUser);
+ * }
+ * loader.dispatch();
+ * </pre>
+ *
+ * @author xl.liu
+ */
+public class BatchLoader<T extends BasePojo> {
+
+    private final SchBo<T, ?>                       bo;
+    // 全部已请求的主键，含已完成的
+    private final Map<Object, CompletableFuture<T>> futures = new HashMap<>();
+    // 等待下次dispatch的主键
+    private final List<Serializable>                pending = new ArrayList<>();
+
+    public BatchLoader(SchBo<T, ?> bo) {
+        if (bo == null) {
+            throw new IllegalArgumentException("bo must not be null");
+        }
+        this.bo = bo;
+    }
+
+    /**
+     * 登记一个主键，dispatch后完成
+     */
+    public CompletableFuture<T> load(Serializable id) {
+        CompletableFuture<T> future = futures.get(id);
+        if (future == null) {
+            future = new CompletableFuture<>();
+            futures.put(id, future);
+            if (id == null) {
+                future.complete(null);
+            } else {
+                pending.add(id);
+            }
+        }
+        return future;
+    }
+
+    public List<CompletableFuture<T>> loadMany(Collection<? extends Serializable> ids) {
+        List<CompletableFuture<T>> ret = new ArrayList<>(ids.size());
+        for (Serializable id : ids) {
+            ret.add(load(id));
+        }
+        return ret;
+    }
+
+    /**
+     * 查询全部等待中的主键并完成对应的结果，回调中新登记的主键在下一次dispatch时查询
+     *
+     * @return 本次查询的主键数量
+     */
+    public int dispatch() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        List<Serializable> ids = new ArrayList<>(pending);
+        pending.clear();
+        Map<Object, T> rows;
+        try {
+            rows = bo.getAllAsMap(ids);
+        } catch (RuntimeException ex) {
+            for (Serializable id : ids) {
+                futures.get(id).completeExceptionally(ex);
+            }
+            throw ex;
+        }
+        for (Serializable id : ids) {
+            futures.get(id).complete(rows.get(id));
+        }
+        return ids.size();
+    }
+
+    /**
+     * 查询一个主键，与等待中的主键一起查询
+     */
+    public T get(Serializable id) {
+        CompletableFuture<T> future = load(id);
+        if (!future.isDone()) {
+            dispatch();
+        }
+        return future.join();
+    }
+}
@@ -1,6 +1,7 @@
 package com.easyway.business.framework.bo;
 
 import java.io.Serializable;
+import com.easyway.business.framework.cache.EntityVersions;
 import com.easyway.business.framework.common.exception.DaoException;
 import com.easyway.business.framework.dao.CrudDao;
 import com.easyway.business.framework.pojo.BasePojo;
@@ -23,6 +24,7 @@ public class CrudBo<T extends BasePojo, Dao extends CrudDao<T>> extends SchBo<T,
         } catch (Exception ex) {
             throw new DaoException(ex);
         }
+        invalidateCache();
     }
 
     /**
@@ -36,6 +38,7 @@ public class CrudBo<T extends BasePojo, Dao extends CrudDao<T>> extends SchBo<T,
         } catch (Exception ex) {
             throw new DaoException(ex);
         }
+        invalidateCache();
     }
 
     /**
@@ -49,6 +52,13 @@ public class CrudBo<T extends BasePojo, Dao extends CrudDao<T>> extends SchBo<T,
         } catch (Exception ex) {
             throw new DaoException(ex);
         }
+        invalidateCache();
     }
 
+    /**
+     * 数据变更成功后使该实体的缓存失效（记录数缓存、查询结果缓存），在事务中时提交后才失效
+     */
+    protected void invalidateCache() {
+        EntityVersions.bumpAfterCommit(cacheNamespace());
+    }
 }
@@ -1,17 +1,41 @@
 package com.easyway.business.framework.bo;
 
 import java.io.Serializable;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.easyway.business.framework.cache.CountCache;
+import com.easyway.business.framework.cache.EntityVersions;
+import com.easyway.business.framework.cache.QueryCache;
+import com.easyway.business.framework.common.exception.DaoException;
 import com.easyway.business.framework.dao.SchDao;
+import com.easyway.business.framework.dao.StreamingSchDao;
 import com.easyway.business.framework.mybatis.query.ConditionQuery;
 import com.easyway.business.framework.mybatis.query.condition.Condition;
+import com.easyway.business.framework.mybatis.query.condition.ListValueCondition;
 import com.easyway.business.framework.pojo.BasePojo;
 import com.easyway.business.framework.pojo.Grid;
 import com.easyway.business.framework.pojo.Page;
 import com.easyway.business.framework.pojo.QueryPojo;
+import com.easyway.business.framework.util.ReflectUtil;
+import com.easyway.business.framework.util.StringUtil;
 
 /**
  * 业务层查询通用父类,适用仅需查询功能需求
@@ -20,7 +44,26 @@ import com.easyway.business.framework.pojo.QueryPojo;
  */
 public class SchBo<T extends BasePojo, Dao extends SchDao<T>> {
 
-    protected Dao dao;
+    protected Dao      dao;
+
+    // 分页查询时与记录数查询并发执行列表查询的线程池，为空时串行执行
+    private Executor   queryExecutor;
+
+    // 记录数缓存，为空时每次分页查询都查询记录数
+    private CountCache countCache;
+
+    // 查询结果缓存，为空时不缓存
+    private QueryCache queryCache;
+
+    // 近似计数阈值，记录数超过该值时不再精确计数，小于等于0时精确计数
+    private int        approximateCountThreshold;
+
+    private String     cacheNamespace;
+
+    // 批量按主键查询时每条语句的主键数量
+    private int        batchGetSize = 500;
+
+    private final Map<Class<?>, Field> idFields = new ConcurrentHashMap<>();
 
     /**
      * 注入相应持久层操作对象
@@ -35,6 +78,107 @@ public class SchBo<T extends BasePojo, Dao extends SchDao<T>> {
     public Dao getDao() {
         return dao;
     }
+
+    /**
+     * 设置后分页查询的列表查询与记录数查询在该线程池上并发执行，页面耗时取两者的较大值；
+     * 分页对象设置了skipCount或hasNextOnly时不查询记录数，只执行列表查询。
+     * 两个查询都在线程池的线程上使用独立连接，不参与调用方的事务；可使用
+     * {@link com.easyway.business.framework.util.BoundedExecutor#virtual}限制总并发数
+     *
+     * @param queryExecutor
+     */
+    public void setQueryExecutor(Executor queryExecutor) {
+        this.queryExecutor = queryExecutor;
+    }
+
+    public Executor getQueryExecutor() {
+        return queryExecutor;
+    }
+
+    /**
+     * 设置后相同条件的分页查询在缓存有效期内不再查询记录数，
+     * 同一实体调用{@link CrudBo}的新增、修改、删除后缓存失效；可多个业务对象共用一个实例
+     *
+     * @param countCache
+     */
+    public void setCountCache(CountCache countCache) {
+        this.countCache = countCache;
+    }
+
+    public CountCache getCountCache() {
+        return countCache;
+    }
+
+    /**
+     * 设置后{@link #get(Serializable)}、{@link #query(QueryPojo)}的结果在缓存有效期内直接返回，
+     * 同一实体调用{@link CrudBo}的新增、修改、删除并提交后缓存失效；缓存的结果不应修改
+     *
+     * @param queryCache
+     */
+    public void setQueryCache(QueryCache queryCache) {
+        this.queryCache = queryCache;
+    }
+
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    /**
+     * 设置后先查询第threshold+1条记录，存在时不再查询记录数，total返回threshold且
+     * {@link Page#isTotalApproximate()}为true；大表宽条件查询时避免全量计数
+     *
+     * @param approximateCountThreshold
+     */
+    public void setApproximateCountThreshold(int approximateCountThreshold) {
+        this.approximateCountThreshold = approximateCountThreshold;
+    }
+
+    public int getApproximateCountThreshold() {
+        return approximateCountThreshold;
+    }
+
+    /**
+     * 设置{@link #getAll(Collection)}每条查询语句包含的主键数量，默认500
+     *
+     * @param batchGetSize
+     */
+    public void setBatchGetSize(int batchGetSize) {
+        if (batchGetSize <= 0) {
+            throw new IllegalArgumentException("batchGetSize must be positive");
+        }
+        this.batchGetSize = batchGetSize;
+    }
+
+    public int getBatchGetSize() {
+        return batchGetSize;
+    }
+
+    /**
+     * 缓存命名空间，默认为实体类名，同一实体的业务对象共用
+     *
+     * @return String
+     */
+    protected String cacheNamespace() {
+        if (cacheNamespace == null) {
+            cacheNamespace = resolveEntityName();
+        }
+        return cacheNamespace;
+    }
+
+    private String resolveEntityName() {
+        for (Class<?> clazz = getClass(); clazz != null && clazz != Object.class;
+                clazz = clazz.getSuperclass()) {
+            Type type = clazz.getGenericSuperclass();
+            if (type instanceof ParameterizedType) {
+                Type[] args = ((ParameterizedType) type).getActualTypeArguments();
+                if (args.length > 0 && args[0] instanceof Class
+                        && SchBo.class.isAssignableFrom(clazz.getSuperclass())) {
+                    return ((Class<?>) args[0]).getName();
+                }
+            }
+        }
+        return getClass().getName();
+    }
     
     public Page list(Page page) {
         ConditionQuery query = page.buildConditionQuery();
@@ -58,20 +202,135 @@ public class SchBo<T extends BasePojo, Dao extends SchDao<T>> {
     }
 
     protected Page queryAndSetPage(Page page, ConditionQuery query) {
-        int cnt = this.dao.queryCnt(query);
-        page.setTotal(cnt);
+        if ((page.isHasNextOnly() || page.isKeyset()) && page.getPageSize() > 0) {
+            // 多查询的一条记录用于判断是否有下一页
+            List<T> newsList = this.dao.query(query);
+            boolean hasNext = newsList.size() > page.getPageSize();
+            if (hasNext) {
+                newsList = new ArrayList<>(newsList.subList(0, page.getPageSize()));
+            }
+            page.setList(newsList);
+            page.setHasNext(hasNext);
+            if (page.isKeyset()) {
+                page.setNextCursor(hasNext ? page.buildCursor(newsList.get(newsList.size() - 1))
+                    : null);
+            }
+            return page;
+        }
+        if (page.isSkipCount()) {
+            List<T> newsList = this.dao.query(query);
+            page.setList(newsList);
+            setHasNext(page, newsList);
+            return page;
+        }
+        if (queryExecutor != null) {
+            return queryAndSetPageConcurrently(page, query);
+        }
+        int cnt = count(page, query);
         if (cnt > 0) {
             List<T> newsList = this.dao.query(query);
             page.setList(newsList);
+            setHasNext(page, newsList);
+        }
+        return page;
+    }
+
+    private static void setHasNext(Page page, List<?> list) {
+        page.setHasNext(page.getPageSize() > 0 && (page.isTotalApproximate()
+                || page.getPageOffset() + list.size() < page.getTotal()));
+    }
+
+    /**
+     * 查询记录数并设置到分页对象，优先使用记录数缓存
+     */
+    private int count(Page page, ConditionQuery query) {
+        // 当前事务写入了该实体时，提交前不使用缓存
+        CountCache cache = countCache != null && !EntityVersions.isPending(cacheNamespace())
+                ? countCache : null;
+        String key = cache != null ? cache.key(cacheNamespace(), query) : null;
+        CountCache.Total total = key != null ? cache.get(key) : null;
+        if (total == null) {
+            total = queryTotal(query);
+            if (key != null) {
+                cache.put(key, total);
+            }
+        }
+        page.setTotal(total.getCount());
+        page.setTotalApproximate(total.isApproximate());
+        return total.getCount();
+    }
+
+    private CountCache.Total queryTotal(ConditionQuery query) {
+        int threshold = this.approximateCountThreshold;
+        if (threshold > 0) {
+            // 第threshold+1条记录存在时记录数超过阈值
+            ConditionQuery probe = query.cloneConditionQuery();
+            probe.addParam("pageOffset", Integer.valueOf(threshold));
+            probe.addParam("pageSize", Integer.valueOf(1));
+            if (!this.dao.query(probe).isEmpty()) {
+                return new CountCache.Total(threshold, true);
+            }
+        }
+        return new CountCache.Total(this.dao.queryCnt(query), false);
+    }
+
+    /**
+     * 列表查询与记录数查询都提交到queryExecutor，占用的连接数受线程池并发数限制
+     */
+    private Page queryAndSetPageConcurrently(Page page, ConditionQuery query) {
+        CompletableFuture<List<T>> listFuture = CompletableFuture
+                .supplyAsync(() -> this.dao.query(query), queryExecutor);
+        CompletableFuture<Integer> countFuture = CompletableFuture
+                .supplyAsync(() -> Integer.valueOf(count(page, query)), queryExecutor);
+        int cnt;
+        try {
+            cnt = join(countFuture).intValue();
+        } catch (RuntimeException ex) {
+            listFuture.cancel(false);
+            throw ex;
+        }
+        List<T> newsList = join(listFuture);
+        if (cnt > 0) {
+            page.setList(newsList);
+            setHasNext(page, newsList);
         }
         return page;
     }
 
+    private static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new DaoException(cause);
+        }
+    }
+
     public List<T> query(QueryPojo queryPojo) {
         ConditionQuery query = queryPojo.buildConditionQuery();
+        QueryCache cache = activeQueryCache();
+        if (cache != null) {
+            String namespace = cacheNamespace();
+            return cache.get(namespace, cache.queryKey(namespace, query),
+                    () -> this.dao.query(query));
+        }
         return this.dao.query(query);
     }
 
+    /**
+     * 查询结果缓存，当前事务写入了该实体时提交前不使用缓存
+     */
+    private QueryCache activeQueryCache() {
+        return queryCache != null && !EntityVersions.isPending(cacheNamespace()) ? queryCache
+                : null;
+    }
+
     public int queryCnt(QueryPojo queryPojo) {
         ConditionQuery query = queryPojo.buildConditionQuery();
         return this.dao.queryCnt(query);
@@ -138,9 +397,141 @@ public class SchBo<T extends BasePojo, Dao extends SchDao<T>> {
     }
 
     public T get(Serializable id) {
+        QueryCache cache = activeQueryCache();
+        if (cache != null && id != null) {
+            String namespace = cacheNamespace();
+            return cache.get(namespace, cache.idKey(namespace, id), () -> this.dao.get(id));
+        }
         return this.dao.get(id);
     }
     
+    /**
+     * 按主键批量查询，主键去重后按batchGetSize分组以IN条件查询，结果按主键的请求顺序返回，
+     * 不存在的记录不返回；设置了查询结果缓存时先从缓存中取，查询到的记录逐条放入缓存
+     * 
+     * @param ids
+     * @return List<T>
+     */
+    public List<T> getAll(Collection<? extends Serializable> ids) {
+        Map<Object, T> found = getAllAsMap(ids);
+        return new ArrayList<>(found.values());
+    }
+
+    /**
+     * 按主键批量查询，返回主键到记录的映射，按主键的请求顺序排列
+     * 
+     * @param ids
+     * @return Map<Object, T>，键为请求中的主键
+     */
+    public Map<Object, T> getAllAsMap(Collection<? extends Serializable> ids) {
+        // 规范化主键 -> 请求中的主键，保持请求顺序
+        Map<Object, Serializable> requested = new LinkedHashMap<>();
+        if (ids != null) {
+            for (Serializable id : ids) {
+                if (id != null) {
+                    requested.putIfAbsent(normalizeId(id), id);
+                }
+            }
+        }
+        Map<Object, T> rows = new HashMap<>(requested.size() * 2);
+        List<Serializable> missing = new ArrayList<>(requested.size());
+        QueryCache cache = activeQueryCache();
+        String namespace = cache != null ? cacheNamespace() : null;
+        for (Map.Entry<Object, Serializable> entry : requested.entrySet()) {
+            T cached = cache != null
+                    ? cache.getIfPresent(cache.idKey(namespace, entry.getValue()))
+                    : null;
+            if (cached != null) {
+                rows.put(entry.getKey(), cached);
+            } else {
+                missing.add(entry.getValue());
+            }
+        }
+        for (int from = 0; from < missing.size(); from += batchGetSize) {
+            List<Serializable> chunk = missing.subList(from,
+                    Math.min(missing.size(), from + batchGetSize));
+            ConditionQuery query = new ConditionQuery();
+            query.add(new ListValueCondition(idColumn(), new ArrayList<Object>(chunk)));
+            query.addParam("pageOffset", Integer.valueOf(0));
+            query.addParam("pageSize", Integer.valueOf(0));
+            for (T row : this.dao.query(query)) {
+                Object key = normalizeId(idOf(row));
+                Serializable id = requested.get(key);
+                if (id != null) {
+                    rows.put(key, row);
+                    if (cache != null) {
+                        cache.put(namespace, cache.idKey(namespace, id), row);
+                    }
+                }
+            }
+        }
+        Map<Object, T> ret = new LinkedHashMap<>(rows.size() * 2);
+        for (Map.Entry<Object, Serializable> entry : requested.entrySet()) {
+            T row = rows.get(entry.getKey());
+            if (row != null) {
+                ret.put(entry.getValue(), row);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * 创建按主键批量加载的加载器，每次请求使用一个
+     * 
+     * @return BatchLoader<T>
+     */
+    public BatchLoader<T> newBatchLoader() {
+        return new BatchLoader<>(this);
+    }
+
+    /**
+     * 主键列名，用于{@link #getAll(Collection)}的IN条件，默认为id
+     *
+     * @return String
+     */
+    protected String idColumn() {
+        return "id";
+    }
+
+    /**
+     * 取记录的主键，默认读取主键列名对应的驼峰属性
+     *
+     * @param row
+     * @return Object
+     */
+    protected Object idOf(T row) {
+        Field field = idFields.computeIfAbsent(row.getClass(), clazz -> {
+            String property = StringUtil.toCamelCase(idColumn());
+            Field f = ReflectUtil.getClassFields(clazz, true).get(property);
+            if (f == null) {
+                throw new IllegalStateException("Id property " + property + " not found in "
+                        + clazz.getName());
+            }
+            f.setAccessible(true);
+            return f;
+        });
+        try {
+            return field.get(row);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 数字类型的主键统一比较，避免请求中的Long与实体中的Integer、BigDecimal不相等
+     */
+    private static Object normalizeId(Object id) {
+        if (id instanceof Number) {
+            try {
+                BigDecimal decimal = new BigDecimal(id.toString()).stripTrailingZeros();
+                return decimal.scale() < 0 ? decimal.setScale(0) : decimal;
+            } catch (NumberFormatException e) {
+                return id;
+            }
+        }
+        return id;
+    }
+
     public List<T> queryList(Grid grid) {
         if (grid != null) {
             grid.setPageSize(0);
@@ -155,4 +546,66 @@ public class SchBo<T extends BasePojo, Dao extends SchDao<T>> {
         List<T> list = dao.query(grid.buildConditionQuery());
         return list;
     }
+
+    /**
+     * 逐条处理查询结果，不分页，适用于导出等大数据量场景；dao实现{@link StreamingSchDao}时
+     * 不在内存中保存结果列表
+     * 
+     * @param queryPojo
+     * @param consumer
+     * @return long 处理的记录数
+     */
+    public long forEach(QueryPojo queryPojo, Consumer<? super T> consumer) {
+        return forEach(queryPojo, 0, consumer);
+    }
+
+    /**
+     * 逐条处理查询结果
+     * 
+     * @param queryPojo
+     * @param fetchSize 每次从数据库读取的记录数，小于等于0时使用语句的配置；
+     *            需注册{@link com.easyway.business.framework.mybatis.FetchSizeInterceptor}
+     * @param consumer
+     * @return long 处理的记录数
+     */
+    public long forEach(QueryPojo queryPojo, int fetchSize, Consumer<? super T> consumer) {
+        long[] count = new long[1];
+        ResultHandler<T> handler = context -> {
+            consumer.accept(context.getResultObject());
+            count[0]++;
+        };
+        forEachResult(queryPojo, fetchSize, handler);
+        return count[0];
+    }
+
+    /**
+     * 逐条处理查询结果，可通过{@link org.apache.ibatis.session.ResultContext#stop()}提前结束
+     * 
+     * @param queryPojo
+     * @param fetchSize
+     * @param handler
+     */
+    public void forEachResult(QueryPojo queryPojo, int fetchSize, ResultHandler<T> handler) {
+        ConditionQuery query = queryPojo.buildConditionQuery();
+        if (queryPojo instanceof Page) {
+            // 不分页
+            query.addParam("pageOffset", Integer.valueOf(0));
+            query.addParam("pageSize", Integer.valueOf(0));
+        }
+        if (fetchSize > 0 || fetchSize == Integer.MIN_VALUE) {
+            query.setFetchSize(fetchSize);
+        }
+        if (this.dao instanceof StreamingSchDao) {
+            ((StreamingSchDao<T>) this.dao).query(query, handler);
+            return;
+        }
+        DefaultResultContext<T> context = new DefaultResultContext<>();
+        for (T row : this.dao.query(query)) {
+            context.nextResultObject(row);
+            handler.handleResult(context);
+            if (context.isStopped()) {
+                break;
+            }
+        }
+    }
 }
@@ -0,0 +1,99 @@
+package com.easyway.business.framework.cache;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.easyway.business.framework.mybatis.query.ConditionQuery;
+
+/**
+ * 分页查询记录数缓存
+ * <p>
+ * 以查询条件的规范化指纹为键（忽略分页、排序参数），同一条件翻页时不再重复查询记录数。
+ * 缓存项在ttl后过期，同一实体新增、修改、删除后通过{@link EntityVersions}失效；
+ * 超出容量时按{@link StripedLruMap}分段淘汰最久未访问的条件
+ * </p>
+ *
+ * @author xl.liu
+ */
+public class CountCache {
+
+    // 分页对象加入的分页、排序参数，不影响记录数；分页对象的状态字段不作为参数（见QueryPojo）
+    private static final Set<String> IGNORED_PARAMS = Set.of("pageOffset", "pageSize", "orderCol",
+            ConditionQuery.FETCH_SIZE);
+
+    private final StripedLruMap<Total> entries;
+    private final long                 ttlNanos;
+
+    /**
+     * @param ttl 缓存时间
+     * @param maxSize 最多缓存的条件数
+     */
+    public CountCache(long ttl, TimeUnit unit, int maxSize) {
+        if (ttl <= 0 || maxSize <= 0) {
+            throw new IllegalArgumentException("ttl and maxSize must be positive");
+        }
+        this.ttlNanos = unit.toNanos(ttl);
+        this.entries = new StripedLruMap<>(maxSize);
+    }
+
+    /**
+     * 缓存键：命名空间、当前版本号及条件指纹，应在查询记录数之前生成
+     */
+    public String key(String namespace, ConditionQuery query) {
+        return namespace + "@" + EntityVersions.current(namespace) + "|" + fingerprint(query);
+    }
+
+    /**
+     * @return 缓存的记录数，不存在或已过期时返回null
+     */
+    public Total get(String key) {
+        return entries.get(key);
+    }
+
+    public void put(String key, Total total) {
+        entries.put(key, total, System.nanoTime() + ttlNanos);
+    }
+
+    /**
+     * 使命名空间下的全部缓存项失效
+     */
+    public void invalidate(String namespace) {
+        EntityVersions.bump(namespace);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 查询条件的规范化指纹：占位符条件及绑定值、按名称排序的参数，忽略分页、排序参数
+     */
+    public static String fingerprint(ConditionQuery query) {
+        return QueryFingerprint.of(query, IGNORED_PARAMS);
+    }
+
+    /**
+     * 记录数，approximate为true时表示实际记录数大于count
+     */
+    public static class Total {
+        private final int     count;
+        private final boolean approximate;
+
+        public Total(int count, boolean approximate) {
+            this.count = count;
+            this.approximate = approximate;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public boolean isApproximate() {
+            return approximate;
+        }
+    }
+}
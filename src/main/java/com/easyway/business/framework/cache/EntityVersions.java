@@ -0,0 +1,111 @@
+package com.easyway.business.framework.cache;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 实体数据版本号，按命名空间（通常为实体类名）计数
+ * <p>
+ * 缓存键中包含读取时的版本号，写入数据后递增版本号，旧版本的缓存项不再命中，随超时自然淘汰，
+ * 无需遍历删除。同一命名空间的多个缓存实例共用版本号
+ * </p>
+ * <p>
+ * 在Spring事务中写入时使用{@link #bumpAfterCommit(String)}，事务提交后才递增版本号：
+ * 提交前递增时，并发的读取可能以新版本号缓存提交前的数据，直到超时
+ * </p>
+ *
+ * @author xl.liu
+ */
+public final class EntityVersions {
+
+    private static final Map<String, AtomicLong> VERSIONS    = new ConcurrentHashMap<>();
+
+    // 当前事务中待递增的命名空间，绑定为事务资源
+    private static final Object                  PENDING_KEY = new Object();
+
+    private EntityVersions() {
+    }
+
+    /**
+     * 当前版本号
+     */
+    public static long current(String namespace) {
+        AtomicLong version = VERSIONS.get(namespace);
+        return version != null ? version.get() : 0L;
+    }
+
+    /**
+     * 递增版本号，使该命名空间下已有的缓存项失效
+     *
+     * @return 新版本号
+     */
+    public static long bump(String namespace) {
+        return VERSIONS.computeIfAbsent(namespace, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * 当前线程有活动的事务同步时，在事务提交后递增版本号，回滚时不递增；否则立即递增
+     */
+    public static void bumpAfterCommit(String namespace) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump(namespace);
+            return;
+        }
+        Set<String> pending = pendingNamespaces();
+        if (pending == null) {
+            pending = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(PENDING_KEY, pending);
+            TransactionSynchronizationManager.registerSynchronization(new PendingBump(pending));
+        }
+        pending.add(namespace);
+    }
+
+    /**
+     * 当前事务是否写入了该命名空间且尚未提交，此时缓存中可能是写入前的数据
+     */
+    public static boolean isPending(String namespace) {
+        Set<String> pending = pendingNamespaces();
+        return pending != null && pending.contains(namespace);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> pendingNamespaces() {
+        return (Set<String>) TransactionSynchronizationManager.getResource(PENDING_KEY);
+    }
+
+    private static class PendingBump implements TransactionSynchronization {
+        private final Set<String> namespaces;
+
+        PendingBump(Set<String> namespaces) {
+            this.namespaces = namespaces;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_KEY);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(PENDING_KEY, namespaces);
+        }
+
+        @Override
+        public void afterCommit() {
+            for (String namespace : namespaces) {
+                bump(namespace);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_KEY);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.easyway.business.framework.cache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.easyway.business.framework.mybatis.query.ConditionQuery;
+
+/**
+ * 查询结果缓存，按LRU淘汰
+ * <p>
+ * 键包含命名空间（通常为实体类名）的版本号，同一实体新增、修改、删除后通过{@link EntityVersions}失效。
+ * 同一个键同时只有一个线程执行查询，其它线程等待其结果，避免缓存失效时大量请求同时访问数据库。
+ * 缓存的对象在调用方之间共享，不应修改；列表结果以只读列表返回
+ * </p>
+ * <p>
+ * 缓存项保存在{@link StripedLruMap}中，按键的哈希分段、每段独立加锁并按LRU淘汰，
+ * 失效版本的缓存项不再被访问，逐渐成为最久未访问项后被淘汰
+ * </p>
+ *
+ * @author xl.liu
+ */
+public class QueryCache {
+
+    // 不影响查询结果的参数
+    private static final Set<String>                     IGNORED_PARAMS = Collections
+            .singleton(ConditionQuery.FETCH_SIZE);
+
+    private final StripedLruMap<Object>                  entries;
+    private final Map<String, CompletableFuture<Object>> loading        = new ConcurrentHashMap<>();
+    private final Map<String, Long>                      namespaceTtls  = new ConcurrentHashMap<>();
+    private final long                                   ttlNanos;
+
+    private final LongAdder                              hits           = new LongAdder();
+    private final LongAdder                              misses         = new LongAdder();
+    private final LongAdder                              loads          = new LongAdder();
+
+    /**
+     * @param ttl 默认缓存时间
+     * @param maxSize 最多缓存的结果数，平均分配到各段
+     */
+    public QueryCache(long ttl, TimeUnit unit, int maxSize) {
+        if (ttl <= 0 || maxSize <= 0) {
+            throw new IllegalArgumentException("ttl and maxSize must be positive");
+        }
+        this.ttlNanos = unit.toNanos(ttl);
+        this.entries = new StripedLruMap<>(maxSize);
+    }
+
+    /**
+     * 设置命名空间的缓存时间，覆盖默认值
+     */
+    public void setTtl(String namespace, long ttl, TimeUnit unit) {
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        namespaceTtls.put(namespace, Long.valueOf(unit.toNanos(ttl)));
+    }
+
+    /**
+     * 按主键查询的缓存键
+     */
+    public String idKey(String namespace, Object id) {
+        return namespace + "@" + EntityVersions.current(namespace) + "|id|" + id;
+    }
+
+    /**
+     * 按条件查询的缓存键，包含分页、排序参数
+     */
+    public String queryKey(String namespace, ConditionQuery query) {
+        return namespace + "@" + EntityVersions.current(namespace) + "|query|"
+                + QueryFingerprint.of(query, IGNORED_PARAMS);
+    }
+
+    /**
+     * 取缓存的结果，不存在时由loader查询并缓存；loader返回null时不缓存
+     *
+     * @param namespace 命名空间，与生成key时一致，用于确定缓存时间
+     * @param key {@link #idKey}或{@link #queryKey}生成的键
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(String namespace, String key, Supplier<V> loader) {
+        Object value = entries.get(key);
+        if (value != null) {
+            hits.increment();
+            return (V) value;
+        }
+        misses.increment();
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            return (V) join(existing);
+        }
+        try {
+            // 等待期间其它线程可能已经加载完成
+            value = entries.get(key);
+            if (value == null) {
+                loads.increment();
+                value = readOnly(loader.get());
+                put(namespace, key, value);
+            }
+            future.complete(value);
+            return (V) value;
+        } catch (RuntimeException | Error ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     * 取缓存的结果，不存在或已过期时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V getIfPresent(String key) {
+        Object value = entries.get(key);
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return (V) value;
+    }
+
+    /**
+     * 放入缓存，用于批量查询后逐条缓存；value为null时忽略
+     */
+    public void put(String namespace, String key, Object value) {
+        if (value == null) {
+            return;
+        }
+        Long ttl = namespaceTtls.get(namespace);
+        long expireAt = System.nanoTime() + (ttl != null ? ttl.longValue() : ttlNanos);
+        entries.put(key, readOnly(value), expireAt);
+    }
+
+    /**
+     * 使命名空间下的全部缓存项失效
+     */
+    public void invalidate(String namespace) {
+        EntityVersions.bump(namespace);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    public long getEvictionCount() {
+        return entries.getEvictionCount();
+    }
+
+    /**
+     * 命中率，没有请求时为0
+     */
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0d : (double) hit / total;
+    }
+
+    private static Object readOnly(Object value) {
+        return value instanceof List ? Collections.unmodifiableList((List<?>) value) : value;
+    }
+
+    private static Object join(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.easyway.business.framework.cache;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.easyway.business.framework.mybatis.query.ConditionQuery;
+
+/**
+ * 查询条件的规范化指纹：占位符条件及绑定值、按名称排序的参数
+ *
+ * @author xl.liu
+ */
+final class QueryFingerprint {
+
+    private QueryFingerprint() {
+    }
+
+    /**
+     * @param ignoredParams 不参与指纹的参数名
+     */
+    static String of(ConditionQuery query, Set<String> ignoredParams) {
+        List<Object> binds = new ArrayList<>();
+        StringBuilder sb = new StringBuilder(query.toSql(binds));
+        sb.append('|');
+        for (Object bind : binds) {
+            sb.append(bind == null ? "null" : normalize(bind)).append(',');
+        }
+        Map<String, String> params = new TreeMap<>();
+        for (Map.Entry<String, Object> entry : query.getParamMap().entrySet()) {
+            if (entry.getValue() != null && !ignoredParams.contains(entry.getKey())) {
+                params.put(entry.getKey(), normalize(entry.getValue()));
+            }
+        }
+        return sb.append(params).toString();
+    }
+
+    static String normalize(Object value) {
+        if (value instanceof Date) {
+            return value.getClass().getSimpleName() + ":" + ((Date) value).getTime();
+        }
+        if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            List<Object> list = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                list.add(Array.get(value, i));
+            }
+            return list.toString();
+        }
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,139 @@
+package com.easyway.business.framework.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带过期时间的分段LRU表
+ * <p>
+ * 缓存项按键的哈希分段，每段是按访问顺序排列的LinkedHashMap，独立加锁、独立按LRU淘汰。
+ * 写入时只检查该段最久未访问的一项是否过期，不遍历整段；不再被访问的缓存项（如失效版本的键）
+ * 逐渐成为最久未访问项后被淘汰
+ * </p>
+ *
+ * @author xl.liu
+ */
+final class StripedLruMap<V> {
+
+    // 最多分段数，每段至少MIN_SEGMENT项
+    private static final int   MAX_SEGMENTS = 16;
+    private static final int   MIN_SEGMENT  = 64;
+
+    private final Segment<V>[] segments;
+    private final LongAdder    evictions    = new LongAdder();
+
+    /**
+     * @param maxSize 最多缓存项数，平均分配到各段
+     */
+    @SuppressWarnings("unchecked")
+    StripedLruMap(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        int count = 1;
+        while (count < MAX_SEGMENTS && count * 2 * MIN_SEGMENT <= maxSize) {
+            count <<= 1;
+        }
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            this.segments[i] = new Segment<>(maxSize / count, evictions);
+        }
+    }
+
+    /**
+     * @return 缓存的值，不存在或已过期时返回null
+     */
+    V get(String key) {
+        Segment<V> segment = segmentFor(key);
+        synchronized (segment) {
+            Entry<V> entry = segment.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expireAt - System.nanoTime() <= 0) {
+                segment.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    /**
+     * @param expireAt 过期时间，与System.nanoTime()比较
+     */
+    void put(String key, V value, long expireAt) {
+        Segment<V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, new Entry<>(value, expireAt));
+        }
+    }
+
+    void clear() {
+        for (Segment<V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 因超出容量被淘汰的项数，不含过期移除的项
+     */
+    long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private Segment<V> segmentFor(String key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+    }
+
+    /**
+     * 按访问顺序排列的一段缓存，调用方持有该段的锁
+     */
+    private static final class Segment<V> extends LinkedHashMap<String, Entry<V>> {
+        private static final long serialVersionUID = 1L;
+
+        private final int         capacity;
+        private final LongAdder   evictions;
+
+        Segment(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        /**
+         * 超出容量时淘汰最久未访问项；最久未访问项已过期时一并移除，每次写入只检查一项
+         */
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return eldest.getValue().expireAt - System.nanoTime() <= 0;
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V    value;
+        private final long expireAt;
+
+        Entry(V value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.easyway.business.framework.dao;
+
+import org.apache.ibatis.session.ResultHandler;
+
+import com.easyway.business.framework.mybatis.query.ConditionQuery;
+import com.easyway.business.framework.pojo.BasePojo;
+
+/**
+ * 支持逐条处理查询结果的持久层接口，mybatis映射接口同时继承该接口即可，无需另外编写语句
+ * <p>
+ * 未继承该接口的{@link SchDao}调用{@link com.easyway.business.framework.bo.SchBo#forEach}时
+ * 先查询结果列表再逐条处理
+ * </p>
+ * 
+ * @author xl.liu
+ */
+public interface StreamingSchDao<T extends BasePojo> extends SchDao<T> {
+
+    /**
+     * 根据条件逐条处理数据库记录，使用与{@link #query(ConditionQuery)}相同的语句，不在内存中保存结果列表。
+     * 流式读取需要驱动支持，可通过{@link ConditionQuery#setFetchSize(int)}并注册
+     * {@link com.easyway.business.framework.mybatis.FetchSizeInterceptor}设置每次读取的记录数
+     * 
+     * @param query
+     * @param handler
+     */
+    public void query(ConditionQuery query, ResultHandler<T> handler);
+}
@@ -6,8 +6,35 @@ import org.apache.ibatis.session.SqlSessionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import com.easyway.business.framework.mybatis.batch.AdaptiveBatchSizer;
+import com.easyway.business.framework.mybatis.batch.BatchListener;
+import com.easyway.business.framework.mybatis.batch.BatchResult;
+import com.easyway.business.framework.mybatis.batch.CheckpointStore;
+import com.easyway.business.framework.mybatis.batch.CommitMode;
+import com.easyway.business.framework.mybatis.batch.DeadLetterSink;
+import com.easyway.business.framework.mybatis.batch.KeyedUpsert;
+import com.easyway.business.framework.mybatis.batch.MultiRowInsert;
+import com.easyway.business.framework.mybatis.batch.PartitionResult;
+import com.easyway.business.framework.util.BoundedExecutor;
 
 /**
  * // 1. 直接调用（最简单）
@@ -39,6 +66,75 @@ import java.util.function.BiConsumer;
  *         session.update("com.example.UserMapper.update", user);
  *     }
  * }, userList);
+ * 
+ * // 5. 分区并行执行（每个分区独立连接，返回各分区执行结果）
+ * BatchResult result = BatchSupport.BatchBuilder.with(sqlSessionFactory)
+ *     .mapper(UserMapper.class, "insert")
+ *     .parallel(4)
+ *     .commitMode(CommitMode.PER_PARTITION)
+ *     .insert(userList);
+ * 
+ * // 6. 流式读取（内存中只保留一个批次），Iterator可直接传入，
+ * //    Spliterator以StreamSupport.stream(spliterator, false)转为流后传入
+ * try (Stream<User> users = readCsv(file)) {
+ *     BatchSupport.BatchBuilder.with(sqlSessionFactory)
+ *         .mapper(UserMapper.class, "insert")
+ *         .insert(users);
+ * }
+ * 
+ * // 7. 分批提交并记录检查点，任务重启后从最后一次提交的位置继续
+ * BatchSupport.BatchBuilder.with(sqlSessionFactory)
+ *     .mapper(UserMapper.class, "insert")
+ *     .commitInterval(100000)
+ *     .checkpoint(new FileCheckpointStore(Paths.get("/data/checkpoint")), "user-import-20240101")
+ *     .insert(users);
+ * 
+ * // 8. 容错模式，失败记录写入死信文件，其余记录正常提交
+ * BatchResult result = BatchSupport.BatchBuilder.with(sqlSessionFactory)
+ *     .mapper(UserMapper.class, "insert")
+ *     .deadLetter(new JsonlDeadLetterSink<>(Paths.get("/data/dead-letter/user.jsonl")))
+ *     .insert(users);
+ * 
+ * // 9. 多行插入，每条 INSERT ... VALUES 语句包含多条记录，适用于不支持批处理重写的驱动
+ * BatchSupport.BatchBuilder.with(sqlSessionFactory)
+ *     .multiRowInsert("t_user", "id", "user_name", "create_time")
+ *     .dialect(SqlDialect.MYSQL)
+ *     .insert(userList);
+ * 
+ * // 10. 按吞吐量自动调整批次大小，sizer可用于监控当前批次大小及历史记录
+ * AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(200, 5000);
+ * BatchSupport.BatchBuilder.with(sqlSessionFactory)
+ *     .mapper(UserMapper.class, "insert")
+ *     .adaptiveBatchSize(sizer)
+ *     .insert(users);
+ * 
+ * // 11. 采集批量执行指标，按mapper语句查询吞吐量、刷新耗时分布及回滚次数
+ * InMemoryBatchMetrics metrics = new InMemoryBatchMetrics();
+ * BatchSupport.addListener(metrics);
+ * metrics.get(UserMapper.class.getName() + ".insert").getFlushLatency().getPercentileNanos(99);
+ * 
+ * // 12. 批量插入或更新：每批先按主键查询已存在的记录，再分别批量插入和更新
+ * BatchSupport.BatchBuilder.with(sqlSessionFactory)
+ *     .mapper(UserMapper.class, "insert")
+ *     .updateStatement("update")
+ *     .upsertKey("t_user", "id", User::getId)
+ *     .upsert(users);
+ * 
+ * // 13. 批量插入或更新：数据库支持时使用合并语句，一次往返完成
+ * BatchSupport.BatchBuilder.with(sqlSessionFactory)
+ *     .multiRowInsert("t_user", "id", "user_name", "update_time")
+ *     .mergeOn("id")
+ *     .dialect(SqlDialect.MYSQL)
+ *     .upsert(users);
+ * 
+ * // 14. 多个批量任务共用虚拟线程池，总并发数不超过连接池大小
+ * BoundedExecutor executor = BoundedExecutor.virtual("batch-", 20);
+ * BatchSupport.BatchBuilder.with(sqlSessionFactory)
+ *     .mapper(UserMapper.class, "insert")
+ *     .parallel(8)
+ *     .commitMode(CommitMode.PER_PARTITION)
+ *     .executor(executor)
+ *     .insert(userList);
  */
 public class BatchSupport {
 
@@ -47,31 +143,97 @@ public class BatchSupport {
     // 默认批次大小
     private static final int    DEFAULT_BATCH_SIZE = 1000;
 
+    // 全局监听器
+    private static final CopyOnWriteArrayList<BatchListener> LISTENERS = new CopyOnWriteArrayList<>();
+
     /**
      * 批量插入数据
      */
-    public static <T> void insertBatch(SqlSessionFactory sqlSessionFactory, Class<?> mapperClass,
+    public static <T> BatchResult insertBatch(SqlSessionFactory sqlSessionFactory, Class<?> mapperClass,
             String mapperId, List<T> dataList) {
-        executeBatch(sqlSessionFactory, dataList,
-                (session, data) -> session.insert(buildStatementName(mapperClass, mapperId), data));
+        String statement = buildStatementName(mapperClass, mapperId);
+        return executeStatement(sqlSessionFactory, statement, iteratorOf(dataList),
+                (session, data) -> session.insert(statement, data));
+    }
+
+    /**
+     * 批量插入数据（逐批读取迭代器）
+     */
+    public static <T> BatchResult insertBatch(SqlSessionFactory sqlSessionFactory, Class<?> mapperClass,
+            String mapperId, Iterator<T> dataIterator) {
+        String statement = buildStatementName(mapperClass, mapperId);
+        return executeStatement(sqlSessionFactory, statement, dataIterator,
+                (session, data) -> session.insert(statement, data));
+    }
+
+    /**
+     * 批量插入数据（逐批读取流，执行结束后关闭流）
+     */
+    public static <T> BatchResult insertBatch(SqlSessionFactory sqlSessionFactory, Class<?> mapperClass,
+            String mapperId, Stream<T> dataStream) {
+        String statement = buildStatementName(mapperClass, mapperId);
+        return executeStatement(sqlSessionFactory, statement, dataStream,
+                (session, data) -> session.insert(statement, data));
     }
 
     /**
      * 批量更新数据
      */
-    public static <T> void updateBatch(SqlSessionFactory sqlSessionFactory, Class<?> mapperClass,
+    public static <T> BatchResult updateBatch(SqlSessionFactory sqlSessionFactory, Class<?> mapperClass,
             String mapperId, List<T> dataList) {
-        executeBatch(sqlSessionFactory, dataList,
-                (session, data) -> session.update(buildStatementName(mapperClass, mapperId), data));
+        String statement = buildStatementName(mapperClass, mapperId);
+        return executeStatement(sqlSessionFactory, statement, iteratorOf(dataList),
+                (session, data) -> session.update(statement, data));
+    }
+
+    /**
+     * 批量更新数据（逐批读取迭代器）
+     */
+    public static <T> BatchResult updateBatch(SqlSessionFactory sqlSessionFactory, Class<?> mapperClass,
+            String mapperId, Iterator<T> dataIterator) {
+        String statement = buildStatementName(mapperClass, mapperId);
+        return executeStatement(sqlSessionFactory, statement, dataIterator,
+                (session, data) -> session.update(statement, data));
+    }
+
+    /**
+     * 批量更新数据（逐批读取流，执行结束后关闭流）
+     */
+    public static <T> BatchResult updateBatch(SqlSessionFactory sqlSessionFactory, Class<?> mapperClass,
+            String mapperId, Stream<T> dataStream) {
+        String statement = buildStatementName(mapperClass, mapperId);
+        return executeStatement(sqlSessionFactory, statement, dataStream,
+                (session, data) -> session.update(statement, data));
     }
 
     /**
      * 批量删除数据
      */
-    public static <T> void deleteBatch(SqlSessionFactory sqlSessionFactory, Class<?> mapperClass,
+    public static <T> BatchResult deleteBatch(SqlSessionFactory sqlSessionFactory, Class<?> mapperClass,
             String mapperId, List<T> dataList) {
-        executeBatch(sqlSessionFactory, dataList,
-                (session, data) -> session.delete(buildStatementName(mapperClass, mapperId), data));
+        String statement = buildStatementName(mapperClass, mapperId);
+        return executeStatement(sqlSessionFactory, statement, iteratorOf(dataList),
+                (session, data) -> session.delete(statement, data));
+    }
+
+    /**
+     * 批量删除数据（逐批读取迭代器）
+     */
+    public static <T> BatchResult deleteBatch(SqlSessionFactory sqlSessionFactory, Class<?> mapperClass,
+            String mapperId, Iterator<T> dataIterator) {
+        String statement = buildStatementName(mapperClass, mapperId);
+        return executeStatement(sqlSessionFactory, statement, dataIterator,
+                (session, data) -> session.delete(statement, data));
+    }
+
+    /**
+     * 批量删除数据（逐批读取流，执行结束后关闭流）
+     */
+    public static <T> BatchResult deleteBatch(SqlSessionFactory sqlSessionFactory, Class<?> mapperClass,
+            String mapperId, Stream<T> dataStream) {
+        String statement = buildStatementName(mapperClass, mapperId);
+        return executeStatement(sqlSessionFactory, statement, dataStream,
+                (session, data) -> session.delete(statement, data));
     }
 
     /**
@@ -85,112 +247,773 @@ public class BatchSupport {
         return mapperClass.getName() + "." + mapperId;
     }
 
+    /**
+     * 注册全局监听器，对之后的所有批量执行生效
+     */
+    public static void addListener(BatchListener listener) {
+        if (listener != null) {
+            LISTENERS.addIfAbsent(listener);
+        }
+    }
+
+    public static void removeListener(BatchListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * 执行mapper语句，statement作为监听器中的语句标识
+     */
+    private static <T> BatchResult executeStatement(SqlSessionFactory sqlSessionFactory,
+            String statement, Iterator<T> dataIterator, BatchProcessor<T> processor) {
+        Settings settings = new Settings(DEFAULT_BATCH_SIZE);
+        settings.statementId = statement;
+        return doExecute(sqlSessionFactory, dataIterator, rowWriter(processor), settings);
+    }
+
+    private static <T> BatchResult executeStatement(SqlSessionFactory sqlSessionFactory,
+            String statement, Stream<T> dataStream, BatchProcessor<T> processor) {
+        if (dataStream == null) {
+            return executeStatement(sqlSessionFactory, statement, (Iterator<T>) null, processor);
+        }
+        try (Stream<T> stream = dataStream) {
+            return executeStatement(sqlSessionFactory, statement, stream.iterator(), processor);
+        }
+    }
+
     /**
      * 通用的批量操作方法
      */
-    public static <T> void executeBatch(SqlSessionFactory sqlSessionFactory, List<T> dataList,
+    public static <T> BatchResult executeBatch(SqlSessionFactory sqlSessionFactory, List<T> dataList,
             BiConsumer<SqlSession, T> operation) {
-        executeBatch(sqlSessionFactory, dataList, operation, DEFAULT_BATCH_SIZE);
+        return executeBatch(sqlSessionFactory, dataList, operation, DEFAULT_BATCH_SIZE);
     }
 
     /**
      * 带批次大小的批量操作方法
      */
-    public static <T> void executeBatch(SqlSessionFactory sqlSessionFactory, List<T> dataList,
+    public static <T> BatchResult executeBatch(SqlSessionFactory sqlSessionFactory, List<T> dataList,
             BiConsumer<SqlSession, T> operation, int batchSize) {
+        return doExecute(sqlSessionFactory, iteratorOf(dataList), rowWriter(operation::accept),
+                new Settings(batchSize));
+    }
+
+    /**
+     * 通用的批量操作方法（逐批读取迭代器）
+     */
+    public static <T> BatchResult executeBatch(SqlSessionFactory sqlSessionFactory,
+            Iterator<T> dataIterator, BiConsumer<SqlSession, T> operation) {
+        return executeBatch(sqlSessionFactory, dataIterator, operation, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * 带批次大小的批量操作方法（逐批读取迭代器）
+     * <p>
+     * 每次只从迭代器读取batchSize条记录，刷新后再读取下一批，内存中最多保留一个批次
+     * </p>
+     */
+    public static <T> BatchResult executeBatch(SqlSessionFactory sqlSessionFactory,
+            Iterator<T> dataIterator, BiConsumer<SqlSession, T> operation, int batchSize) {
+        return doExecute(sqlSessionFactory, dataIterator, rowWriter(operation::accept),
+                new Settings(batchSize));
+    }
+
+    /**
+     * 通用的批量操作方法（逐批读取流，执行结束后关闭流）
+     */
+    public static <T> BatchResult executeBatch(SqlSessionFactory sqlSessionFactory,
+            Stream<T> dataStream, BiConsumer<SqlSession, T> operation) {
+        return executeBatch(sqlSessionFactory, dataStream, operation, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * 带批次大小的批量操作方法（逐批读取流，执行结束后关闭流）
+     */
+    public static <T> BatchResult executeBatch(SqlSessionFactory sqlSessionFactory,
+            Stream<T> dataStream, BiConsumer<SqlSession, T> operation, int batchSize) {
+        if (dataStream == null) {
+            return executeBatch(sqlSessionFactory, (Iterator<T>) null, operation, batchSize);
+        }
+        try (Stream<T> stream = dataStream) {
+            return executeBatch(sqlSessionFactory, stream.iterator(), operation, batchSize);
+        }
+    }
+
+    /**
+     * 分区并行批量操作方法
+     * <p>
+     * 将dataList拆分为partitions个连续分区，每个分区在executor上使用独立的BATCH会话执行；
+     * executor为null时按分区数创建临时线程池，执行完毕后关闭。
+     * 分区数应不大于连接池大小，否则分区会在获取连接时阻塞
+     * </p>
+     */
+    public static <T> BatchResult executeBatchParallel(SqlSessionFactory sqlSessionFactory,
+            List<T> dataList, BiConsumer<SqlSession, T> operation, int batchSize, int partitions,
+            CommitMode commitMode, ExecutorService executor) {
+        Settings settings = new Settings(batchSize);
+        settings.partitions = partitions;
+        settings.commitMode = commitMode;
+        settings.executor = executor;
+        return executeParallel(sqlSessionFactory, dataList, rowWriter(operation::accept),
+                settings);
+    }
+
+    /**
+     * 分区并行批量操作方法（共享迭代器）
+     * <p>
+     * 各分区线程从同一个迭代器中按批次领取记录，内存中最多保留partitions个批次；
+     * 此时分区内的记录不连续，分区结果的offset为-1
+     * </p>
+     */
+    public static <T> BatchResult executeBatchParallel(SqlSessionFactory sqlSessionFactory,
+            Iterator<T> dataIterator, BiConsumer<SqlSession, T> operation, int batchSize,
+            int partitions, CommitMode commitMode, ExecutorService executor) {
+        Settings settings = new Settings(batchSize);
+        settings.partitions = partitions;
+        settings.commitMode = commitMode;
+        settings.executor = executor;
+        return executeParallel(sqlSessionFactory, dataIterator, rowWriter(operation::accept),
+                settings);
+    }
+
+    private static <T> BatchResult executeParallel(SqlSessionFactory sqlSessionFactory,
+            List<T> dataList, ChunkWriter<T> writer, Settings settings) {
         if (dataList == null || dataList.isEmpty()) {
             logger.warn("Batch processing skipped: data list is empty");
-            return;
+            return BatchResult.empty();
         }
 
-        if (batchSize <= 0) {
-            batchSize = DEFAULT_BATCH_SIZE;
+        int totalCount = dataList.size();
+        int partitionCount = Math.max(1, Math.min(settings.partitions, totalCount));
+        if (partitionCount == 1) {
+            return doExecute(sqlSessionFactory, dataList.iterator(), writer, settings);
         }
 
-        SqlSession session = null;
+        // 按连续区间拆分，前 totalCount % partitionCount 个分区各多分一条
+        List<ChunkSource<T>> sources = new ArrayList<>(partitionCount);
+        int base = totalCount / partitionCount;
+        int remainder = totalCount % partitionCount;
+        int from = 0;
+        for (int i = 0; i < partitionCount; i++) {
+            int to = from + base + (i < remainder ? 1 : 0);
+            sources.add(new ChunkSource<>(dataList.subList(from, to).iterator(), from, false));
+            from = to;
+        }
+        return doExecuteParallel(sqlSessionFactory, sources, writer, settings);
+    }
+
+    private static <T> BatchResult executeParallel(SqlSessionFactory sqlSessionFactory,
+            Iterator<T> dataIterator, ChunkWriter<T> writer, Settings settings) {
+        if (dataIterator == null || !dataIterator.hasNext()) {
+            logger.warn("Batch processing skipped: data list is empty");
+            return BatchResult.empty();
+        }
+
+        int partitionCount = Math.max(1, settings.partitions);
+        if (partitionCount == 1) {
+            return doExecute(sqlSessionFactory, dataIterator, writer, settings);
+        }
+        if (settings.checkpointStore != null) {
+            throw new IllegalStateException(
+                    "Checkpoint requires contiguous partitions, use a List source in parallel mode");
+        }
+
+        ChunkSource<T> shared = new ChunkSource<>(dataIterator, 0L, true);
+        List<ChunkSource<T>> sources = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            sources.add(shared);
+        }
+        return doExecuteParallel(sqlSessionFactory, sources, writer, settings);
+    }
+
+    private static <T> BatchResult doExecuteParallel(SqlSessionFactory sqlSessionFactory,
+            List<ChunkSource<T>> sources, ChunkWriter<T> writer, Settings settings) {
+        CommitMode commitMode = settings.commitMode;
+        boolean deferCommit = commitMode == CommitMode.ALL_OR_NOTHING;
+        if (deferCommit && (settings.commitInterval > 0 || settings.deadLetterSink != null)) {
+            throw new IllegalStateException("Commit interval and dead letter are not supported with "
+                    + CommitMode.ALL_OR_NOTHING);
+        }
+
+        int partitionCount = sources.size();
+        ExecutorService executor = settings.executor;
+        if (deferCommit && executor != null && maxConcurrency(executor) < partitionCount) {
+            // 已完成的分区在统一提交前仍持有连接，线程池的并发数无法限制连接数
+            throw new IllegalStateException("Partitions (" + partitionCount
+                    + ") exceed executor concurrency (" + maxConcurrency(executor) + ") with "
+                    + CommitMode.ALL_OR_NOTHING);
+        }
+        boolean ownExecutor = executor == null;
+        ExecutorService pool = ownExecutor
+                ? newPartitionExecutor(partitionCount, settings.virtualThreads) : executor;
+        SqlSession[] sessions = new SqlSession[partitionCount];
+        List<Future<PartitionResult>> futures = new ArrayList<>(partitionCount);
+        AtomicBoolean aborted = new AtomicBoolean(false);
+        CountDownLatch finished = new CountDownLatch(partitionCount);
+
+        logger.debug("Starting parallel batch processing, partitions: {}, batch size: {}, commit mode: {}",
+                partitionCount, settings.batchSize, commitMode);
+
+        long begin = System.nanoTime();
+        settings.fireStart(partitionCount);
+        try {
+            for (int i = 0; i < partitionCount; i++) {
+                ChunkSource<T> source = sources.get(i);
+                int index = i;
+                try {
+                    futures.add(pool.submit(() -> runPartition(sqlSessionFactory, sessions, index,
+                            source, writer, settings, aborted, finished)));
+                } catch (RejectedExecutionException e) {
+                    aborted.set(true);
+                    // 未提交的分区不会执行，直接计数
+                    for (int j = i; j < partitionCount; j++) {
+                        finished.countDown();
+                    }
+                    awaitUninterruptibly(finished);
+                    BatchResult result = failedResult(futures, partitionCount, e, begin);
+                    settings.fireComplete(result);
+                    throw new BatchOperationException("Partition " + i + " rejected by executor", e,
+                            result);
+                }
+            }
+
+            List<PartitionResult> results = new ArrayList<>(partitionCount);
+            for (Future<PartitionResult> future : futures) {
+                results.add(future.get());
+            }
+
+            if (deferCommit) {
+                results = completeAll(sessions, results, settings);
+            }
+
+            BatchResult result = new BatchResult(results, System.nanoTime() - begin);
+            settings.fireComplete(result);
+            if (deferCommit && !result.isSuccess()) {
+                throw new BatchOperationException("Parallel batch processing failed",
+                        rootFailure(result), result);
+            }
+            if (!result.isSuccess()) {
+                logger.warn("Parallel batch processing completed with failures: {}", result);
+            } else {
+                for (int i = 0; i < partitionCount; i++) {
+                    clearCheckpoint(settings, settings.checkpointKey(i, true));
+                }
+                logger.info("Parallel batch processing completed: {}", result);
+            }
+            return result;
+        } catch (InterruptedException e) {
+            aborted.set(true);
+            // 等待执行中的分区在下一次刷新时退出，避免在其它线程使用会话时回滚
+            awaitUninterruptibly(finished);
+            BatchResult result = failedResult(futures, partitionCount, e, begin);
+            settings.fireComplete(result);
+            Thread.currentThread().interrupt();
+            throw new BatchOperationException("Parallel batch processing interrupted", e, result);
+        } catch (ExecutionException e) {
+            // runPartition自身已捕获异常，此处仅为防御；同样等待其它分区退出后再回滚
+            aborted.set(true);
+            awaitUninterruptibly(finished);
+            BatchResult result = failedResult(futures, partitionCount, e.getCause(), begin);
+            settings.fireComplete(result);
+            throw new BatchOperationException("Parallel batch processing failed", e.getCause(),
+                    result);
+        } finally {
+            if (deferCommit) {
+                // 中断等异常路径下仍持有的会话全部回滚
+                rollbackAndCloseAll(sessions);
+            }
+            if (ownExecutor) {
+                pool.shutdownNow();
+            }
+        }
+    }
 
+    /**
+     * 执行单个分区
+     * <p>
+     * 统一提交模式下只刷新不提交，会话保留在sessions中由调用方统一提交或回滚
+     * </p>
+     */
+    private static <T> PartitionResult runPartition(SqlSessionFactory sqlSessionFactory,
+            SqlSession[] sessions, int index, ChunkSource<T> source, ChunkWriter<T> writer,
+            Settings settings, AtomicBoolean aborted, CountDownLatch finished) {
+        boolean deferCommit = settings.commitMode == CommitMode.ALL_OR_NOTHING;
+        String checkpointKey = settings.checkpointKey(index, true);
+        long begin = System.nanoTime();
+        long offset = -1L;
+        SqlSession session = null;
+        Progress progress = new Progress();
         try {
+            checkAborted(aborted, index);
+            resume(source, settings, checkpointKey);
+            offset = source.isShared() ? -1L : source.position();
+
             session = sqlSessionFactory.openSession(ExecutorType.BATCH, false);
-            int totalCount = dataList.size();
+            sessions[index] = session;
 
-            logger.debug("Starting batch processing for {} records, batch size: {}", 
-                    totalCount, batchSize);
+            drain(session, source, writer, settings, checkpointKey, index, aborted, progress);
+
+            if (deferCommit) {
+                return new PartitionResult(index, offset, progress.processed, 0L, 0L,
+                        System.nanoTime() - begin, false, null);
+            }
+
+            // 分区完成时检查点保留在分区末尾，全部分区成功后统一清除
+            commit(session, settings, checkpointKey, progress);
+            return new PartitionResult(index, offset, progress.processed, progress.committed,
+                    progress.deadLettered, System.nanoTime() - begin, true, null);
+        } catch (Exception e) {
+            if (deferCommit) {
+                aborted.set(true);
+            }
+            logger.error("Batch partition {} failed after {} records, {} committed", index,
+                    progress.processed, progress.committed, e);
+            if (session != null && !deferCommit) {
+                rollbackQuietly(session);
+                settings.fireRollback(progress.processed - progress.committed
+                        - progress.deadLettered, e);
+            }
+            return new PartitionResult(index, offset, progress.processed, progress.committed,
+                    progress.deadLettered, System.nanoTime() - begin, false, e);
+        } finally {
+            if (session != null && !deferCommit) {
+                session.close();
+                sessions[index] = null;
+            }
+            finished.countDown();
+        }
+    }
 
-            for (int i = 0; i < totalCount; i++) {
-                T data = dataList.get(i);
-                // 使用封装了statement的操作
-                operation.accept(session, data);
+    /**
+     * 按批次读取并执行，每批执行后刷新一次；设置了提交间隔时达到间隔即提交
+     *
+     * @param progress 执行进度，异常时调用方仍可读取
+     */
+    private static <T> void drain(SqlSession session, ChunkSource<T> source,
+            ChunkWriter<T> writer, Settings settings, String checkpointKey, int index,
+            AtomicBoolean aborted, Progress progress) {
+        AdaptiveBatchSizer sizer = settings.sizer;
+        List<T> chunk = new ArrayList<>(Math.min(settings.batchSize, DEFAULT_BATCH_SIZE));
+        long start;
+        while ((start = source.fill(chunk, sizer != null ? sizer.getCurrentSize()
+                : settings.batchSize)) >= 0) {
+            if (settings.deadLetterSink != null) {
+                // 容错模式：每批提交，失败的批次二分定位失败记录
+                writeTolerant(session, chunk, start, writer, settings, checkpointKey, index,
+                        progress);
+                chunk.clear();
+            } else {
+                long begin = System.nanoTime();
+                writer.write(session, chunk);
 
                 // 分批刷新到数据库
-                if (i > 0 && i % batchSize == 0) {
-                    session.flushStatements();
-                    logger.debug("Flushed statements: {}/{} records processed", i + 1, totalCount);
+                session.flushStatements();
+                long elapsed = System.nanoTime() - begin;
+                if (sizer != null) {
+                    sizer.record(chunk.size(), elapsed);
+                }
+                settings.fireFlush(chunk.size(), elapsed);
+                progress.processed += chunk.size();
+                progress.position = start + chunk.size();
+                chunk.clear();
+                logger.debug("Partition {} flushed statements: {} records processed", index,
+                        progress.processed);
+
+                // 达到提交间隔，提交并记录检查点
+                if (settings.commitInterval > 0
+                        && progress.processed - progress.committed >= settings.commitInterval) {
+                    commit(session, settings, checkpointKey, progress);
                 }
             }
 
-            // 循环结束后一次性提交事务和清理缓存
-            session.commit();
-            session.clearCache();
+            // 其它分区已失败或调用方被中断，提前结束
+            if (aborted != null) {
+                checkAborted(aborted, index);
+            }
+        }
+    }
 
-            logger.info("Batch processing completed: {} records processed", totalCount);
+    /**
+     * 容错模式执行一个批次
+     * <p>
+     * 批次执行失败时回滚该批次，再二分拆分重新执行：执行成功的部分立即提交并记录检查点，
+     * 拆分到单条仍失败的记录写入死信。只有少量失败记录时，额外开销约为每条失败记录
+     * 2*log2(batchSize)次往返
+     * </p>
+     */
+    private static <T> void writeTolerant(SqlSession session, List<T> chunk, long start,
+            ChunkWriter<T> writer, Settings settings, String checkpointKey, int index,
+            Progress progress) {
+        long processed = progress.processed;
+        try {
+            long begin = System.nanoTime();
+            writer.write(session, chunk);
+            session.flushStatements();
+            long elapsed = System.nanoTime() - begin;
+            if (settings.sizer != null) {
+                settings.sizer.record(chunk.size(), elapsed);
+            }
+            settings.fireFlush(chunk.size(), elapsed);
         } catch (Exception e) {
-            logger.error("Batch processing failed", e);
-            if (session != null) {
-                session.rollback();
+            logger.warn("Partition {} batch at offset {} failed, isolating failed records", index,
+                    start, e);
+            rollbackQuietly(session);
+            settings.fireRollback(chunk.size(), e);
+            if (chunk.size() == 1) {
+                deadLetter(settings, chunk.get(0), start, e, progress);
+            } else {
+                int mid = chunk.size() >>> 1;
+                isolate(session, chunk, start, 0, mid, writer, settings, checkpointKey, processed,
+                        progress);
+                isolate(session, chunk, start, mid, chunk.size(), writer, settings, checkpointKey,
+                        processed, progress);
             }
-            throw new BatchOperationException("Batch processing failed", e);
-        } finally {
+        }
+        progress.processed = processed + chunk.size();
+        progress.position = start + chunk.size();
+        commit(session, settings, checkpointKey, progress);
+        logger.debug("Partition {} committed: {} records processed, {} dead letters", index,
+                progress.processed, progress.deadLettered);
+    }
+
+    /**
+     * 执行批次中[from, to)区间的记录，成功则提交，失败则继续二分
+     * <p>
+     * 区间按顺序执行，提交或写入死信后批次的[0, to)区间均已处理完毕，随即记录检查点；
+     * 之后超出死信上限中止时，恢复执行不会重复写入已处理的记录
+     * </p>
+     *
+     * @param processed 批次开始前已处理的记录数
+     */
+    private static <T> void isolate(SqlSession session, List<T> chunk, long start, int from,
+            int to, ChunkWriter<T> writer, Settings settings, String checkpointKey,
+            long processed, Progress progress) {
+        try {
+            writer.write(session, chunk.subList(from, to));
+            session.flushStatements();
+        } catch (Exception e) {
+            rollbackQuietly(session);
+            settings.fireRollback(to - from, e);
+            if (to - from == 1) {
+                deadLetter(settings, chunk.get(from), start + from, e, progress);
+                progress.processed = processed + to;
+                progress.position = start + to;
+                saveCheckpoint(settings, checkpointKey, progress);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            isolate(session, chunk, start, from, mid, writer, settings, checkpointKey, processed,
+                    progress);
+            isolate(session, chunk, start, mid, to, writer, settings, checkpointKey, processed,
+                    progress);
+            return;
+        }
+        progress.processed = processed + to;
+        progress.position = start + to;
+        commit(session, settings, checkpointKey, progress);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void deadLetter(Settings settings, T data, long offset, Throwable error,
+            Progress progress) {
+        progress.deadLettered++;
+        if (settings.maxDeadLetters >= 0 && progress.deadLettered > settings.maxDeadLetters) {
+            throw new BatchOperationException(
+                    "Dead letter limit exceeded: " + settings.maxDeadLetters, error);
+        }
+        logger.warn("Record at offset {} sent to dead letter: {}", offset, error.toString());
+        ((DeadLetterSink<T>) settings.deadLetterSink).accept(data, offset, error);
+    }
+
+    /**
+     * 提交事务，并在设置了检查点存储时记录已提交的位置
+     */
+    private static void commit(SqlSession session, Settings settings, String checkpointKey,
+            Progress progress) {
+        long begin = System.nanoTime();
+        session.commit();
+        session.clearCache();
+        long committed = progress.processed - progress.deadLettered;
+        settings.fireCommit(committed - progress.committed, System.nanoTime() - begin);
+        progress.committed = committed;
+        saveCheckpoint(settings, checkpointKey, progress);
+    }
+
+    private static void saveCheckpoint(Settings settings, String checkpointKey, Progress progress) {
+        if (settings.checkpointStore != null && progress.position >= 0) {
+            settings.checkpointStore.save(checkpointKey, progress.position);
+            logger.debug("Checkpoint {} saved at offset {}", checkpointKey, progress.position);
+        }
+    }
+
+    /**
+     * 从检查点恢复，跳过已提交的记录
+     */
+    private static <T> void resume(ChunkSource<T> source, Settings settings, String checkpointKey) {
+        if (settings.checkpointStore == null) {
+            return;
+        }
+        long offset = settings.checkpointStore.load(checkpointKey);
+        if (offset > source.position()) {
+            long skipped = source.skipTo(offset);
+            logger.info("Checkpoint {} found, resuming from offset {} ({} records skipped)",
+                    checkpointKey, source.position(), skipped);
+        }
+    }
+
+    private static void clearCheckpoint(Settings settings, String checkpointKey) {
+        if (settings.checkpointStore != null) {
+            settings.checkpointStore.clear(checkpointKey);
+        }
+    }
+
+    /**
+     * 统一提交模式：全部成功则逐个提交，否则全部回滚
+     */
+    private static List<PartitionResult> completeAll(SqlSession[] sessions,
+            List<PartitionResult> results, Settings settings) {
+        boolean allSuccess = true;
+        for (PartitionResult result : results) {
+            allSuccess &= result.isSuccess();
+        }
+
+        List<PartitionResult> completed = new ArrayList<>(results.size());
+        Throwable commitFailure = null;
+        for (PartitionResult result : results) {
+            SqlSession session = sessions[result.getIndex()];
+            sessions[result.getIndex()] = null;
+            if (session == null) {
+                completed.add(result);
+                continue;
+            }
+            try {
+                if (allSuccess && commitFailure == null) {
+                    long begin = System.nanoTime();
+                    session.commit();
+                    session.clearCache();
+                    settings.fireCommit(result.getRowCount(), System.nanoTime() - begin);
+                    completed.add(result.withCommitted(true, null));
+                } else {
+                    session.rollback();
+                    settings.fireRollback(result.getRowCount(),
+                            commitFailure != null ? commitFailure : result.getFailure());
+                    completed.add(commitFailure != null && result.isSuccess()
+                            ? result.withCommitted(false, commitFailure) : result);
+                }
+            } catch (Exception e) {
+                logger.error("Batch partition {} commit failed", result.getIndex(), e);
+                commitFailure = e;
+                rollbackQuietly(session);
+                settings.fireRollback(result.getRowCount(), e);
+                completed.add(result.withCommitted(false, e));
+            } finally {
+                session.close();
+            }
+        }
+        return completed;
+    }
+
+    private static void rollbackAndCloseAll(SqlSession[] sessions) {
+        for (int i = 0; i < sessions.length; i++) {
+            SqlSession session = sessions[i];
             if (session != null) {
+                sessions[i] = null;
+                rollbackQuietly(session);
                 session.close();
             }
         }
     }
 
+    private static void rollbackQuietly(SqlSession session) {
+        try {
+            session.rollback();
+        } catch (Exception e) {
+            logger.warn("Batch session rollback failed", e);
+        }
+    }
+
+    private static void checkAborted(AtomicBoolean aborted, int index) {
+        if (aborted.get()) {
+            throw new PartitionAbortedException("Partition " + index + " aborted");
+        }
+    }
+
+    /**
+     * 取第一个非联动中止的失败原因
+     */
+    private static Throwable rootFailure(BatchResult result) {
+        List<PartitionResult> failures = result.getFailures();
+        for (PartitionResult failure : failures) {
+            if (!(failure.getFailure() instanceof PartitionAbortedException)) {
+                return failure.getFailure();
+            }
+        }
+        return failures.get(0).getFailure();
+    }
+
+    /**
+     * 等待全部分区结束，期间忽略中断，由调用方恢复中断标记
+     */
+    /**
+     * 异常结束时的执行结果：已结束分区取其结果，未提交或未正常结束的分区记为失败；
+     * 调用前全部已提交的分区应已结束
+     */
+    private static BatchResult failedResult(List<Future<PartitionResult>> futures,
+            int partitionCount, Throwable cause, long begin) {
+        long elapsed = System.nanoTime() - begin;
+        List<PartitionResult> results = new ArrayList<>(partitionCount);
+        boolean interrupted = false;
+        for (int i = 0; i < partitionCount; i++) {
+            PartitionResult result = null;
+            if (i < futures.size()) {
+                while (true) {
+                    try {
+                        result = futures.get(i).get();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException | CancellationException e) {
+                        break;
+                    }
+                }
+            }
+            results.add(result != null ? result
+                    : new PartitionResult(i, -1L, 0L, 0L, 0L, elapsed, false, cause));
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return new BatchResult(results, elapsed);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch finished) {
+        while (true) {
+            try {
+                finished.await();
+                return;
+            } catch (InterruptedException e) {
+                // 继续等待
+            }
+        }
+    }
+
+    /**
+     * 线程池最多同时执行的任务数，无法确定时返回Integer.MAX_VALUE
+     */
+    private static int maxConcurrency(ExecutorService executor) {
+        if (executor instanceof BoundedExecutor) {
+            return ((BoundedExecutor) executor).getMaxConcurrency();
+        }
+        if (executor instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) executor).getMaximumPoolSize();
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    private static ExecutorService newPartitionExecutor(int partitions, boolean virtualThreads) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("batch-partition-", 1).factory());
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(partitions, r -> {
+            Thread thread = new Thread(r, "batch-partition-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
     /**
      * 带自定义处理器的高级批量处理方法
      */
-    public static <T> void processInBatch(SqlSessionFactory sqlSessionFactory, int batchSize,
+    public static <T> BatchResult processInBatch(SqlSessionFactory sqlSessionFactory, int batchSize,
             BatchProcessor<T> batchProcessor, List<T> dataList) {
-        if (dataList == null || dataList.isEmpty()) {
-            logger.warn("Batch processing skipped: data list is empty");
-            return;
+        return doExecute(sqlSessionFactory, iteratorOf(dataList), rowWriter(batchProcessor),
+                new Settings(batchSize));
+    }
+
+    /**
+     * 带自定义处理器的高级批量处理方法（逐批读取迭代器）
+     */
+    public static <T> BatchResult processInBatch(SqlSessionFactory sqlSessionFactory, int batchSize,
+            BatchProcessor<T> batchProcessor, Iterator<T> dataIterator) {
+        return doExecute(sqlSessionFactory, dataIterator, rowWriter(batchProcessor),
+                new Settings(batchSize));
+    }
+
+    /**
+     * 带自定义处理器的高级批量处理方法（逐批读取流，执行结束后关闭流）
+     */
+    public static <T> BatchResult processInBatch(SqlSessionFactory sqlSessionFactory, int batchSize,
+            BatchProcessor<T> batchProcessor, Stream<T> dataStream) {
+        if (dataStream == null) {
+            return doExecute(sqlSessionFactory, null, rowWriter(batchProcessor),
+                    new Settings(batchSize));
+        }
+        try (Stream<T> stream = dataStream) {
+            return doExecute(sqlSessionFactory, stream.iterator(), rowWriter(batchProcessor),
+                    new Settings(batchSize));
         }
+    }
 
-        if (batchSize <= 0) {
-            batchSize = DEFAULT_BATCH_SIZE;
+    /**
+     * 单会话串行批量执行
+     * <p>
+     * 未设置提交间隔时循环结束后一次性提交；设置了提交间隔时每达到间隔提交一次，
+     * 失败时只回滚最后一次提交之后的记录，并可通过检查点从已提交位置继续执行
+     * </p>
+     */
+    private static <T> BatchResult doExecute(SqlSessionFactory sqlSessionFactory,
+            Iterator<T> dataIterator, ChunkWriter<T> writer, Settings settings) {
+        if (dataIterator == null || !dataIterator.hasNext()) {
+            logger.warn("Batch processing skipped: data list is empty");
+            return BatchResult.empty();
         }
 
         SqlSession session = null;
+        long begin = System.nanoTime();
+        Progress progress = new Progress();
+        ChunkSource<T> source = new ChunkSource<>(dataIterator, 0L, false);
+        String checkpointKey = settings.checkpointKey(0, false);
+        long offset = 0L;
+        settings.fireStart(1);
 
         try {
-            session = sqlSessionFactory.openSession(ExecutorType.BATCH, false);
-            int totalCount = dataList.size();
+            resume(source, settings, checkpointKey);
+            offset = source.position();
 
-            logger.debug("Starting batch processing for {} records, batch size: {}", totalCount,
-                    batchSize);
+            session = sqlSessionFactory.openSession(ExecutorType.BATCH, false);
 
-            for (int i = 0; i < totalCount; i++) {
-                T data = dataList.get(i);
-                batchProcessor.process(session, data);
+            logger.debug("Starting batch processing, batch size: {}, commit interval: {}",
+                    settings.batchSize, settings.commitInterval);
 
-                // 分批刷新到数据库
-                if (i > 0 && i % batchSize == 0) {
-                    session.flushStatements();
-                    logger.debug("Flushed statements: {}/{} records processed", i + 1, totalCount);
-                }
-            }
+            drain(session, source, writer, settings, checkpointKey, 0, null, progress);
 
-            // 循环结束后一次性提交事务和清理缓存
-            session.commit();
-            session.clearCache();
+            // 循环结束后提交剩余记录和清理缓存
+            commit(session, settings, checkpointKey, progress);
+            clearCheckpoint(settings, checkpointKey);
 
-            logger.info("Batch processing completed: {} records processed", totalCount);
+            logger.info("Batch processing completed: {} records processed, {} dead letters",
+                    progress.processed, progress.deadLettered);
+            long elapsed = System.nanoTime() - begin;
+            BatchResult result = new BatchResult(Collections.singletonList(new PartitionResult(0,
+                    offset, progress.processed, progress.committed, progress.deadLettered, elapsed,
+                    true, null)), elapsed);
+            settings.fireComplete(result);
+            return result;
         } catch (Exception e) {
-            logger.error("Batch processing failed", e);
+            logger.error("Batch processing failed after {} records, {} committed",
+                    progress.processed, progress.committed, e);
             if (session != null) {
                 session.rollback();
+                settings.fireRollback(progress.processed - progress.committed
+                        - progress.deadLettered, e);
             }
-            throw new BatchOperationException("Batch processing failed", e);
+            long elapsed = System.nanoTime() - begin;
+            BatchResult result = new BatchResult(Collections.singletonList(new PartitionResult(0,
+                    offset, progress.processed, progress.committed, progress.deadLettered, elapsed,
+                    false, e)), elapsed);
+            settings.fireComplete(result);
+            throw new BatchOperationException("Batch processing failed", e, result);
         } finally {
             if (session != null) {
                 session.close();
@@ -198,6 +1021,194 @@ public class BatchSupport {
         }
     }
 
+    private static <T> ChunkWriter<T> rowWriter(BatchProcessor<T> processor) {
+        return (session, rows) -> {
+            for (T data : rows) {
+                processor.process(session, data);
+            }
+        };
+    }
+
+    private static <T> Iterator<T> iteratorOf(List<T> dataList) {
+        return dataList == null ? null : dataList.iterator();
+    }
+
+    /**
+     * 批次写入器，将一个批次的记录写入会话，由调用方负责刷新和提交
+     */
+    @FunctionalInterface
+    private interface ChunkWriter<T> {
+        void write(SqlSession session, List<T> rows);
+    }
+
+    /**
+     * 批量执行参数
+     */
+    private static final class Settings {
+        int             batchSize;
+        // 提交间隔（记录数），小于等于0时执行结束后一次性提交
+        long            commitInterval;
+        CheckpointStore checkpointStore;
+        String          jobId;
+        int             partitions = 1;
+        CommitMode      commitMode = CommitMode.ALL_OR_NOTHING;
+        ExecutorService executor;
+        // 未指定executor时使用虚拟线程执行分区
+        boolean         virtualThreads;
+        // 死信输出，设置后启用容错模式
+        DeadLetterSink<?> deadLetterSink;
+        // 死信数量上限，超过后终止执行，小于0表示不限制
+        long            maxDeadLetters = -1L;
+        // 设置后按吞吐量自动调整批次大小，忽略batchSize
+        AdaptiveBatchSizer sizer;
+        // 监听器中的语句标识
+        String          statementId = BatchListener.CUSTOM_STATEMENT;
+        List<BatchListener> listeners;
+
+        Settings(int batchSize) {
+            this.batchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+            this.listeners = new ArrayList<>(LISTENERS);
+        }
+
+        void fireStart(int partitions) {
+            for (BatchListener listener : listeners) {
+                try {
+                    listener.onStart(statementId, partitions);
+                } catch (RuntimeException e) {
+                    logger.warn("Batch listener {} failed", listener, e);
+                }
+            }
+        }
+
+        void fireFlush(int rows, long elapsedNanos) {
+            for (BatchListener listener : listeners) {
+                try {
+                    listener.onFlush(statementId, rows, elapsedNanos);
+                } catch (RuntimeException e) {
+                    logger.warn("Batch listener {} failed", listener, e);
+                }
+            }
+        }
+
+        void fireCommit(long rows, long elapsedNanos) {
+            for (BatchListener listener : listeners) {
+                try {
+                    listener.onCommit(statementId, rows, elapsedNanos);
+                } catch (RuntimeException e) {
+                    logger.warn("Batch listener {} failed", listener, e);
+                }
+            }
+        }
+
+        void fireRollback(long rows, Throwable cause) {
+            for (BatchListener listener : listeners) {
+                try {
+                    listener.onRollback(statementId, rows, cause);
+                } catch (RuntimeException e) {
+                    logger.warn("Batch listener {} failed", listener, e);
+                }
+            }
+        }
+
+        void fireComplete(BatchResult result) {
+            for (BatchListener listener : listeners) {
+                try {
+                    listener.onComplete(statementId, result);
+                } catch (RuntimeException e) {
+                    logger.warn("Batch listener {} failed", listener, e);
+                }
+            }
+        }
+
+        /**
+         * 检查点标识，并行分区时每个分区独立记录
+         */
+        String checkpointKey(int partition, boolean partitioned) {
+            if (checkpointStore == null) {
+                return null;
+            }
+            return partitioned ? jobId + "#" + partition : jobId;
+        }
+    }
+
+    /**
+     * 分区执行进度
+     */
+    private static final class Progress {
+        // 已处理的记录数
+        long processed;
+        // 已提交的记录数
+        long committed;
+        // 写入死信的记录数
+        long deadLettered;
+        // 最后一个已刷新批次结束时在数据源中的位置
+        long position = -1L;
+    }
+
+    /**
+     * 批次数据源，按批次从迭代器读取记录
+     * <p>
+     * shared为true时多个分区线程共用同一数据源，读取时加锁
+     * </p>
+     */
+    private static final class ChunkSource<T> {
+        private final Iterator<T> iterator;
+        private final boolean     shared;
+        private long              position;
+
+        ChunkSource(Iterator<T> iterator, long position, boolean shared) {
+            this.iterator = iterator;
+            this.position = position;
+            this.shared = shared;
+        }
+
+        boolean isShared() {
+            return shared;
+        }
+
+        long position() {
+            return position;
+        }
+
+        /**
+         * 跳过记录直到指定位置
+         *
+         * @return 实际跳过的记录数
+         */
+        long skipTo(long target) {
+            long skipped = 0;
+            while (position < target && iterator.hasNext()) {
+                iterator.next();
+                position++;
+                skipped++;
+            }
+            return skipped;
+        }
+
+        /**
+         * 读取最多size条记录到buffer
+         *
+         * @return 本批次在数据源中的起始位置，数据源已读完时返回-1
+         */
+        long fill(List<T> buffer, int size) {
+            if (shared) {
+                synchronized (this) {
+                    return doFill(buffer, size);
+                }
+            }
+            return doFill(buffer, size);
+        }
+
+        private long doFill(List<T> buffer, int size) {
+            long start = position;
+            while (buffer.size() < size && iterator.hasNext()) {
+                buffer.add(iterator.next());
+            }
+            position += buffer.size();
+            return buffer.isEmpty() ? -1L : start;
+        }
+    }
+
     /**
      * 批量处理器接口
      */
@@ -212,6 +1223,8 @@ public class BatchSupport {
     public static class BatchOperationException extends RuntimeException {
         private static final long serialVersionUID = 1L;
 
+        private transient BatchResult result;
+
         public BatchOperationException(String message) {
             super(message);
         }
@@ -219,6 +1232,29 @@ public class BatchSupport {
         public BatchOperationException(String message, Throwable cause) {
             super(message, cause);
         }
+
+        public BatchOperationException(String message, Throwable cause, BatchResult result) {
+            super(message, cause);
+            this.result = result;
+        }
+
+        /**
+         * 分区并行执行失败时的各分区结果，其它情况为null
+         */
+        public BatchResult getResult() {
+            return result;
+        }
+    }
+
+    /**
+     * 分区因其它分区失败或调用方中断而提前结束
+     */
+    private static final class PartitionAbortedException extends BatchOperationException {
+        private static final long serialVersionUID = 1L;
+
+        PartitionAbortedException(String message) {
+            super(message);
+        }
     }
 
     /**
@@ -228,7 +1264,31 @@ public class BatchSupport {
         private final SqlSessionFactory sqlSessionFactory;
         private Class<?>                mapperClass;
         private String                  mapperId;
-        private int                     batchSize = DEFAULT_BATCH_SIZE;
+        private int                     batchSize  = DEFAULT_BATCH_SIZE;
+        // 并行分区数，小于等于1时串行执行
+        private int                     partitions = 1;
+        private CommitMode              commitMode = CommitMode.ALL_OR_NOTHING;
+        private ExecutorService         executor;
+        private boolean                 virtualThreads;
+        private long                    commitInterval;
+        private CheckpointStore         checkpointStore;
+        private String                  jobId;
+        private DeadLetterSink<?>       deadLetterSink;
+        private long                    maxDeadLetters = -1L;
+        private String                  table;
+        private String[]                columns;
+        private String[]                properties;
+        private SqlDialect              dialect        = SqlDialect.GENERIC;
+        // 单条语句的绑定参数上限，小于等于0时使用方言的默认上限
+        private int                     maxBindParams;
+        private AdaptiveBatchSizer      sizer;
+        private List<BatchListener>     listeners      = new ArrayList<>();
+        // 合并语句的唯一键
+        private String[]                mergeKeys;
+        private String                  upsertTable;
+        private String                  upsertKeyColumn;
+        private Function<Object, ?>     upsertKeyExtractor;
+        private String                  updateId;
 
         private BatchBuilder(SqlSessionFactory sqlSessionFactory) {
             this.sqlSessionFactory = sqlSessionFactory;
@@ -249,39 +1309,355 @@ public class BatchSupport {
             return this;
         }
 
-        public <T> void insert(List<T> dataList) {
-            validateMapper();
-            // 直接调用doBatchOperation，让它在内部构建statement
-            executeBatch(sqlSessionFactory, dataList, (session, data) -> session
-                    .insert(buildStatementName(mapperClass, mapperId), data), batchSize);
+        /**
+         * 按刷新吞吐量在[minSize, maxSize]之间自动调整批次大小，以当前batchSize为初始值
+         */
+        public BatchBuilder adaptiveBatchSize(int minSize, int maxSize) {
+            return adaptiveBatchSize(new AdaptiveBatchSizer(minSize, maxSize, batchSize, 0L));
         }
 
-        public <T> void update(List<T> dataList) {
-            validateMapper();
-            executeBatch(sqlSessionFactory, dataList, (session, data) -> session
-                    .update(buildStatementName(mapperClass, mapperId), data), batchSize);
+        /**
+         * 使用指定的控制器自动调整批次大小，可保留该实例查询当前批次大小及历史记录，
+         * 或在多次执行之间复用调整结果
+         */
+        public BatchBuilder adaptiveBatchSize(AdaptiveBatchSizer sizer) {
+            this.sizer = sizer;
+            return this;
         }
 
-        public <T> void delete(List<T> dataList) {
-            validateMapper();
-            executeBatch(sqlSessionFactory, dataList, (session, data) -> session
-                    .delete(buildStatementName(mapperClass, mapperId), data), batchSize);
+        /**
+         * 添加仅对本次执行生效的监听器，与全局监听器一起回调
+         */
+        public BatchBuilder listener(BatchListener listener) {
+            if (listener != null) {
+                this.listeners.add(listener);
+            }
+            return this;
+        }
+
+        /**
+         * 拆分为partitions个分区并行执行，每个分区占用一个连接
+         */
+        public BatchBuilder parallel(int partitions) {
+            this.partitions = Math.max(1, partitions);
+            return this;
+        }
+
+        /**
+         * 并行执行时的提交方式，默认{@link CommitMode#ALL_OR_NOTHING}
+         */
+        public BatchBuilder commitMode(CommitMode commitMode) {
+            this.commitMode = commitMode != null ? commitMode : CommitMode.ALL_OR_NOTHING;
+            return this;
+        }
+
+        /**
+         * 并行执行使用的线程池，未设置时每次执行创建临时线程池
+         * <p>
+         * {@link CommitMode#ALL_OR_NOTHING}模式下已完成的分区保留连接直到统一提交，
+         * 同时持有的连接数等于分区数，因此分区数不能超过线程池的并发数（{@link BoundedExecutor}
+         * 的maxConcurrency或ThreadPoolExecutor的最大线程数），否则执行时抛出IllegalStateException
+         * </p>
+         */
+        public BatchBuilder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * 未设置executor时，并行分区在虚拟线程上执行；需要限制多个任务的总并发数时，
+         * 使用{@link BoundedExecutor#virtual}创建共享的线程池并通过{@link #executor}设置
+         */
+        public BatchBuilder virtualThreads() {
+            this.virtualThreads = true;
+            return this;
+        }
+
+        /**
+         * 每处理commitInterval条记录提交一次（在批次边界提交，实际间隔向上取整到batchSize），
+         * 小于等于0时执行结束后一次性提交。并行执行时仅支持{@link CommitMode#PER_PARTITION}
+         */
+        public BatchBuilder commitInterval(long commitInterval) {
+            this.commitInterval = commitInterval;
+            return this;
+        }
+
+        /**
+         * 每次提交后将已提交位置记录到检查点，重新执行同一jobId时从该位置继续；
+         * 全部完成后清除检查点。恢复时数据源的记录顺序及并行分区数必须与上次一致
+         */
+        public BatchBuilder checkpoint(CheckpointStore checkpointStore, String jobId) {
+            if (checkpointStore != null && (jobId == null || jobId.trim().isEmpty())) {
+                throw new IllegalArgumentException("jobId must not be null or empty");
+            }
+            this.checkpointStore = checkpointStore;
+            this.jobId = jobId;
+            return this;
+        }
+
+        /**
+         * 启用容错模式：单条记录失败时不回滚整个任务，失败记录及异常写入deadLetterSink。
+         * 容错模式下每个批次提交一次，并行执行时仅支持{@link CommitMode#PER_PARTITION}
+         */
+        public BatchBuilder deadLetter(DeadLetterSink<?> deadLetterSink) {
+            this.deadLetterSink = deadLetterSink;
+            return this;
+        }
+
+        /**
+         * 容错模式下死信数量上限，超过后终止执行（例如数据库不可用时避免全部记录进入死信），
+         * 小于0表示不限制
+         */
+        public BatchBuilder maxDeadLetters(long maxDeadLetters) {
+            this.maxDeadLetters = maxDeadLetters;
+            return this;
+        }
+
+        /**
+         * 插入时将多条记录合并为一条 INSERT ... VALUES (...), (...) 语句，无需设置mapper；
+         * 列对应的属性名按列名转驼峰（user_name -> userName）
+         */
+        public BatchBuilder multiRowInsert(String table, String... columns) {
+            return multiRowInsert(table, columns, null);
+        }
+
+        /**
+         * 插入时将多条记录合并为一条 INSERT ... VALUES (...), (...) 语句，无需设置mapper
+         *
+         * @param properties 与列一一对应的实体属性名
+         */
+        public BatchBuilder multiRowInsert(String table, String[] columns, String[] properties) {
+            this.table = table;
+            this.columns = columns;
+            this.properties = properties;
+            return this;
+        }
+
+        /**
+         * 与{@link #multiRowInsert}一起使用，upsert时生成按唯一键合并的单条SQL（MySQL ON DUPLICATE KEY
+         * UPDATE、PostgreSQL ON CONFLICT、H2/Oracle MERGE），键已存在时更新其余列。需设置方言；
+         * PostgreSQL、Oracle要求同一条语句中的键不重复
+         */
+        public BatchBuilder mergeOn(String... keyColumns) {
+            this.mergeKeys = keyColumns;
+            return this;
+        }
+
+        /**
+         * upsert时每个批次按keyColumn查询已存在的键，拆分为插入组（mapper设置的语句）和更新组
+         * （{@link #updateStatement}设置的语句）在同一会话中批量执行
+         *
+         * @param keyExtractor 从记录中取键
+         */
+        @SuppressWarnings("unchecked")
+        public <T> BatchBuilder upsertKey(String table, String keyColumn,
+                Function<? super T, ?> keyExtractor) {
+            this.upsertTable = table;
+            this.upsertKeyColumn = keyColumn;
+            this.upsertKeyExtractor = (Function<Object, ?>) keyExtractor;
+            return this;
+        }
+
+        /**
+         * upsert时更新组使用的语句，与mapper设置的插入语句属于同一个Mapper
+         */
+        public BatchBuilder updateStatement(String updateId) {
+            this.updateId = updateId;
+            return this;
+        }
+
+        /**
+         * 多行插入使用的数据库方言，默认{@link SqlDialect#GENERIC}
+         */
+        public BatchBuilder dialect(SqlDialect dialect) {
+            this.dialect = dialect != null ? dialect : SqlDialect.GENERIC;
+            return this;
+        }
+
+        /**
+         * 多行插入时单条语句的绑定参数上限，每条语句的记录数不超过 maxBindParams / 列数
+         */
+        public BatchBuilder maxBindParams(int maxBindParams) {
+            this.maxBindParams = maxBindParams;
+            return this;
+        }
+
+        public <T> BatchResult insert(List<T> dataList) {
+            return run(dataList, insertWriter());
+        }
+
+        public <T> BatchResult insert(Iterator<T> dataIterator) {
+            return run(dataIterator, insertWriter());
+        }
+
+        public <T> BatchResult insert(Stream<T> dataStream) {
+            return run(dataStream, insertWriter());
+        }
+
+        /**
+         * 批量插入或更新，需通过{@link #mergeOn}或{@link #upsertKey}指定合并方式
+         */
+        public <T> BatchResult upsert(List<T> dataList) {
+            return run(dataList, upsertWriter());
+        }
+
+        public <T> BatchResult upsert(Iterator<T> dataIterator) {
+            return run(dataIterator, upsertWriter());
+        }
+
+        public <T> BatchResult upsert(Stream<T> dataStream) {
+            return run(dataStream, upsertWriter());
+        }
+
+        public <T> BatchResult update(List<T> dataList) {
+            return run(dataList, rowWriter(updateOperation()));
+        }
+
+        public <T> BatchResult update(Iterator<T> dataIterator) {
+            return run(dataIterator, rowWriter(updateOperation()));
+        }
+
+        public <T> BatchResult update(Stream<T> dataStream) {
+            return run(dataStream, rowWriter(updateOperation()));
+        }
+
+        public <T> BatchResult delete(List<T> dataList) {
+            return run(dataList, rowWriter(deleteOperation()));
+        }
+
+        public <T> BatchResult delete(Iterator<T> dataIterator) {
+            return run(dataIterator, rowWriter(deleteOperation()));
+        }
+
+        public <T> BatchResult delete(Stream<T> dataStream) {
+            return run(dataStream, rowWriter(deleteOperation()));
         }
 
         /**
          * 自定义批量操作
          */
-        public <T> void execute(List<T> dataList, BiConsumer<SqlSession, T> operation,
+        public <T> BatchResult execute(List<T> dataList, BiConsumer<SqlSession, T> operation,
                 String operationType) {
             validateMapper();
-            executeBatch(sqlSessionFactory, dataList, operation, batchSize);
+            return run(dataList, rowWriter(operation::accept));
         }
 
         /**
          * 使用自定义处理器执行批量操作
          */
-        public <T> void process(List<T> dataList, BatchProcessor<T> processor) {
-            processInBatch(sqlSessionFactory, batchSize, processor, dataList);
+        public <T> BatchResult process(List<T> dataList, BatchProcessor<T> processor) {
+            return run(dataList, rowWriter(processor));
+        }
+
+        /**
+         * 使用自定义处理器执行批量操作（逐批读取迭代器）
+         */
+        public <T> BatchResult process(Iterator<T> dataIterator, BatchProcessor<T> processor) {
+            return run(dataIterator, rowWriter(processor));
+        }
+
+        /**
+         * 使用自定义处理器执行批量操作（逐批读取流，执行结束后关闭流）
+         */
+        public <T> BatchResult process(Stream<T> dataStream, BatchProcessor<T> processor) {
+            return run(dataStream, rowWriter(processor));
+        }
+
+        private <T> ChunkWriter<T> insertWriter() {
+            if (table == null) {
+                return rowWriter(insertOperation());
+            }
+            MultiRowInsert statement = new MultiRowInsert(table, columns, properties, dialect);
+            int rowsPerStatement = statement.rowsPerStatement(batchSize, maxBindParams);
+            return (session, rows) -> statement.insert(session, rows, rowsPerStatement);
+        }
+
+        private <T> ChunkWriter<T> upsertWriter() {
+            if (table != null && mergeKeys != null) {
+                MultiRowInsert statement = new MultiRowInsert(table, columns, properties, dialect,
+                        mergeKeys);
+                int rowsPerStatement = statement.rowsPerStatement(batchSize, maxBindParams);
+                return (session, rows) -> statement.insert(session, rows, rowsPerStatement);
+            }
+            if (upsertKeyExtractor == null) {
+                throw new IllegalStateException(
+                        "Upsert requires mergeOn() with multiRowInsert(), or upsertKey()");
+            }
+            validateMapper();
+            if (updateId == null) {
+                throw new IllegalStateException("Update statement must be set using updateStatement()");
+            }
+            int maxInKeys = maxBindParams > 0 ? maxBindParams
+                    : Math.min(DEFAULT_BATCH_SIZE, dialect.getMaxBindParameters());
+            KeyedUpsert<T> upsert = new KeyedUpsert<>(upsertTable, upsertKeyColumn,
+                    upsertKeyExtractor, buildStatementName(mapperClass, mapperId),
+                    buildStatementName(mapperClass, updateId), maxInKeys);
+            return upsert::write;
+        }
+
+        private <T> BatchProcessor<T> insertOperation() {
+            validateMapper();
+            // 直接调用doBatchOperation，让它在内部构建statement
+            String statement = buildStatementName(mapperClass, mapperId);
+            return (session, data) -> session.insert(statement, data);
+        }
+
+        private <T> BatchProcessor<T> updateOperation() {
+            validateMapper();
+            String statement = buildStatementName(mapperClass, mapperId);
+            return (session, data) -> session.update(statement, data);
+        }
+
+        private <T> BatchProcessor<T> deleteOperation() {
+            validateMapper();
+            String statement = buildStatementName(mapperClass, mapperId);
+            return (session, data) -> session.delete(statement, data);
+        }
+
+        private <T> BatchResult run(List<T> dataList, ChunkWriter<T> writer) {
+            Settings settings = settings();
+            if (partitions > 1) {
+                return executeParallel(sqlSessionFactory, dataList, writer, settings);
+            }
+            return doExecute(sqlSessionFactory, iteratorOf(dataList), writer, settings);
+        }
+
+        private <T> BatchResult run(Iterator<T> dataIterator, ChunkWriter<T> writer) {
+            Settings settings = settings();
+            if (partitions > 1) {
+                return executeParallel(sqlSessionFactory, dataIterator, writer, settings);
+            }
+            return doExecute(sqlSessionFactory, dataIterator, writer, settings);
+        }
+
+        private Settings settings() {
+            Settings settings = new Settings(batchSize);
+            settings.partitions = partitions;
+            settings.commitMode = commitMode;
+            settings.executor = executor;
+            settings.virtualThreads = virtualThreads;
+            settings.commitInterval = commitInterval;
+            settings.checkpointStore = checkpointStore;
+            settings.jobId = jobId;
+            settings.deadLetterSink = deadLetterSink;
+            settings.maxDeadLetters = maxDeadLetters;
+            settings.sizer = sizer;
+            settings.listeners.addAll(listeners);
+            if (table != null) {
+                settings.statementId = "insert:" + table;
+            } else if (mapperClass != null && mapperId != null) {
+                settings.statementId = buildStatementName(mapperClass, mapperId);
+            }
+            return settings;
+        }
+
+        private <T> BatchResult run(Stream<T> dataStream, ChunkWriter<T> writer) {
+            if (dataStream == null) {
+                return run((Iterator<T>) null, writer);
+            }
+            try (Stream<T> stream = dataStream) {
+                return run(stream.iterator(), writer);
+            }
         }
 
         private void validateMapper() {
@@ -0,0 +1,53 @@
+package com.easyway.business.framework.mybatis;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Map;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+
+import com.easyway.business.framework.mybatis.query.ConditionQuery;
+
+/**
+ * 按查询参数设置Statement的fetchSize
+ * <p>
+ * 参数为{@link ConditionQuery}或Map且包含{@link ConditionQuery#FETCH_SIZE}时生效，
+ * 配合{@link com.easyway.business.framework.dao.StreamingSchDao#query(ConditionQuery, org.apache.ibatis.session.ResultHandler)}
+ * 流式读取大量记录。在mybatis配置文件的plugins中注册
+ * </p>
+ *
+ * @author xl.liu
+ */
+@Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class,
+        Integer.class }))
+public class FetchSizeInterceptor implements Interceptor {
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        if (result instanceof Statement) {
+            StatementHandler handler = (StatementHandler) invocation.getTarget();
+            Integer fetchSize = fetchSize(handler.getParameterHandler().getParameterObject());
+            if (fetchSize != null) {
+                ((Statement) result).setFetchSize(fetchSize.intValue());
+            }
+        }
+        return result;
+    }
+
+    private static Integer fetchSize(Object parameter) {
+        Object value = null;
+        if (parameter instanceof ConditionQuery) {
+            value = ((ConditionQuery) parameter).getParamMap().get(ConditionQuery.FETCH_SIZE);
+        } else if (parameter instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) parameter;
+            value = map.containsKey(ConditionQuery.FETCH_SIZE) ? map.get(ConditionQuery.FETCH_SIZE)
+                    : null;
+        }
+        return value instanceof Integer ? (Integer) value : null;
+    }
+}
@@ -0,0 +1,57 @@
+package com.easyway.business.framework.mybatis;
+
+/**
+ * 数据库方言，用于生成与数据库相关的SQL片段
+ *
+ * @author xl.liu
+ */
+public enum SqlDialect {
+
+    MYSQL(65535),
+
+    POSTGRESQL(32767),
+
+    /**
+     * Oracle 23c之前不支持多行VALUES，使用INSERT ALL代替
+     */
+    ORACLE(65535),
+
+    H2(65535),
+
+    /**
+     * 未知数据库，按最保守的方式生成SQL（SQL Server单条语句最多2100个参数）
+     */
+    GENERIC(2000);
+
+    // 单条语句允许的绑定参数上限
+    private final int maxBindParameters;
+
+    SqlDialect(int maxBindParameters) {
+        this.maxBindParameters = maxBindParameters;
+    }
+
+    public int getMaxBindParameters() {
+        return maxBindParameters;
+    }
+
+    /**
+     * 是否支持 INSERT ... VALUES (...), (...) 多行插入语法
+     */
+    public boolean supportsMultiRowValues() {
+        return this != ORACLE;
+    }
+
+    /**
+     * 是否支持按唯一键合并（存在则更新，不存在则插入）的单条SQL
+     */
+    public boolean supportsMerge() {
+        return this != GENERIC;
+    }
+
+    /**
+     * 是否支持以数组绑定参数（col = any (?)）
+     */
+    public boolean supportsArrayBind() {
+        return this == POSTGRESQL || this == H2;
+    }
+}
@@ -0,0 +1,318 @@
+package com.easyway.business.framework.mybatis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.easyway.business.framework.mybatis.BatchSupport.BatchOperationException;
+import com.easyway.business.framework.mybatis.batch.BatchResult;
+import com.easyway.business.framework.mybatis.batch.DeadLetterSink;
+
+/**
+ * 异步写入队列（write-behind），将逐条的增、删、改合并为批量操作执行
+ * <p>
+ * 调用方入队后立即返回CompletableFuture，每个mapper语句使用独立的有界队列和后台刷新线程，
+ * 队列累积到batchSize条或距第一条入队超过flushInterval时，通过{@link BatchSupport}批量写入。
+ * 单条记录失败不影响同批其它记录，对应的future以该记录的异常结束
+ * </p>
+ * <p>
+ * 队列已满时入队方阻塞等待（背压）；close()拒绝新的入队，并等待已入队的记录全部写入后返回。
+ * 数据库连接等整体失败时，未确认写入的记录的future以异常结束，其中部分记录可能已写入
+ * </p>
+ *
+ * <pre>
+ * WriteBehindQueue queue = new WriteBehindQueue(sqlSessionFactory, 500, 200, 10000);
+ * CompletableFuture&lt;Void&gt; future = queue.insert(UserDao.class, "save", user);
+ * ...
+ * queue.close();
+ * </pre>
+ *
+ * @author xl.liu
+ */
+public class WriteBehindQueue implements AutoCloseable {
+
+    private static final Logger                  logger         = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+    private static final AtomicInteger           THREAD_COUNTER = new AtomicInteger();
+
+    private final SqlSessionFactory              sqlSessionFactory;
+    private final int                            batchSize;
+    private final long                           flushIntervalNanos;
+    private final int                            capacity;
+    private final Map<String, StatementQueue<?>> queues         = new ConcurrentHashMap<>();
+    // 入队持有读锁，关闭持有写锁，保证关闭后不会再有记录进入队列
+    private final ReadWriteLock                  closeLock      = new ReentrantReadWriteLock();
+    private volatile boolean                     closed;
+
+    public WriteBehindQueue(SqlSessionFactory sqlSessionFactory) {
+        this(sqlSessionFactory, 500, 200L, 10000);
+    }
+
+    /**
+     * @param batchSize 每批最多写入的记录数
+     * @param flushIntervalMillis 记录在队列中的最长等待时间（毫秒）
+     * @param capacity 每个语句队列的容量，队列满时入队方阻塞
+     */
+    public WriteBehindQueue(SqlSessionFactory sqlSessionFactory, int batchSize,
+            long flushIntervalMillis, int capacity) {
+        if (sqlSessionFactory == null) {
+            throw new IllegalArgumentException("sqlSessionFactory must not be null");
+        }
+        if (batchSize <= 0 || flushIntervalMillis <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException(
+                    "batchSize, flushIntervalMillis and capacity must be positive");
+        }
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.capacity = capacity;
+    }
+
+    /**
+     * 异步插入
+     */
+    public <T> CompletableFuture<Void> insert(Class<?> mapperClass, String mapperId, T data) {
+        return enqueue(Operation.INSERT, mapperClass, mapperId, data);
+    }
+
+    /**
+     * 异步更新
+     */
+    public <T> CompletableFuture<Void> update(Class<?> mapperClass, String mapperId, T data) {
+        return enqueue(Operation.UPDATE, mapperClass, mapperId, data);
+    }
+
+    /**
+     * 异步删除
+     */
+    public <T> CompletableFuture<Void> delete(Class<?> mapperClass, String mapperId, T data) {
+        return enqueue(Operation.DELETE, mapperClass, mapperId, data);
+    }
+
+    /**
+     * 所有队列中等待写入的记录数
+     */
+    public int getPendingCount() {
+        int pending = 0;
+        for (StatementQueue<?> queue : queues.values()) {
+            pending += queue.entries.size();
+        }
+        return pending;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 拒绝新的入队，等待已入队的记录全部写入
+     */
+    @Override
+    public void close() {
+        shutdown(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 拒绝新的入队，最多等待timeout时间让已入队的记录写入
+     *
+     * @return 全部记录在超时前写入完成时返回true
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) {
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        boolean interrupted = false;
+        try {
+            for (StatementQueue<?> queue : queues.values()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    queue.flusher.join(Math.max(1L, TimeUnit.NANOSECONDS.toMillis(remaining)));
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+                if (queue.flusher.isAlive()) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<Void> enqueue(Operation operation, Class<?> mapperClass,
+            String mapperId, T data) {
+        if (mapperClass == null || mapperId == null || mapperId.trim().isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Mapper class and mapperId must not be null or empty");
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("WriteBehindQueue is closed");
+            }
+            String key = operation + ":" + mapperClass.getName() + "." + mapperId;
+            StatementQueue<T> queue = (StatementQueue<T>) queues.computeIfAbsent(key,
+                    k -> new StatementQueue<>(operation, mapperClass, mapperId));
+            queue.entries.put(new Entry<>(data, future));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for queue space", e);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        return future;
+    }
+
+    private enum Operation {
+        INSERT, UPDATE, DELETE
+    }
+
+    private static final class Entry<T> {
+        final T                       data;
+        final CompletableFuture<Void> future;
+
+        Entry(T data, CompletableFuture<Void> future) {
+            this.data = data;
+            this.future = future;
+        }
+    }
+
+    /**
+     * 单个mapper语句的队列及其刷新线程
+     */
+    private final class StatementQueue<T> implements Runnable {
+        final Operation               operation;
+        final Class<?>                mapperClass;
+        final String                  mapperId;
+        final BlockingQueue<Entry<T>> entries;
+        final Thread                  flusher;
+
+        StatementQueue(Operation operation, Class<?> mapperClass, String mapperId) {
+            this.operation = operation;
+            this.mapperClass = mapperClass;
+            this.mapperId = mapperId;
+            this.entries = new LinkedBlockingQueue<>(capacity);
+            this.flusher = new Thread(this, "write-behind-" + THREAD_COUNTER.incrementAndGet());
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        }
+
+        @Override
+        public void run() {
+            List<Entry<T>> batch = new ArrayList<>(batchSize);
+            while (!closed || !entries.isEmpty()) {
+                try {
+                    collect(batch);
+                } catch (InterruptedException e) {
+                    // 刷新线程不响应中断，关闭时由close()等待队列写完
+                }
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                    batch.clear();
+                }
+            }
+            logger.debug("Write-behind flusher for {}.{} stopped", mapperClass.getName(),
+                    mapperId);
+        }
+
+        /**
+         * 收集一批记录：凑满batchSize条，或第一条入队后等待flushInterval
+         */
+        private void collect(List<Entry<T>> batch) throws InterruptedException {
+            Entry<T> first = entries.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+            if (first == null) {
+                return;
+            }
+            batch.add(first);
+            long deadline = System.nanoTime() + flushIntervalNanos;
+            while (batch.size() < batchSize) {
+                entries.drainTo(batch, batchSize - batch.size());
+                long remaining = deadline - System.nanoTime();
+                if (batch.size() >= batchSize || remaining <= 0 || closed) {
+                    return;
+                }
+                Entry<T> next = entries.poll(remaining, TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    return;
+                }
+                batch.add(next);
+            }
+        }
+
+        private void flush(List<Entry<T>> batch) {
+            List<T> rows = new ArrayList<>(batch.size());
+            for (Entry<T> entry : batch) {
+                rows.add(entry.data);
+            }
+            Throwable[] errors = new Throwable[batch.size()];
+            DeadLetterSink<T> sink = (data, offset, error) -> errors[(int) offset] = error;
+            try {
+                BatchSupport.BatchBuilder builder = BatchSupport.BatchBuilder
+                        .with(sqlSessionFactory).mapper(mapperClass, mapperId)
+                        .batchSize(batchSize).deadLetter(sink);
+                BatchResult result;
+                if (operation == Operation.INSERT) {
+                    result = builder.insert(rows);
+                } else if (operation == Operation.UPDATE) {
+                    result = builder.update(rows);
+                } else {
+                    result = builder.delete(rows);
+                }
+                complete(batch, errors, result.getCommittedCount(), null);
+            } catch (BatchOperationException e) {
+                logger.error("Write-behind flush of {} records failed", batch.size(), e);
+                BatchResult result = e.getResult();
+                complete(batch, errors, result != null ? result.getCommittedCount() : 0L, e);
+            } catch (Exception e) {
+                logger.error("Write-behind flush of {} records failed", batch.size(), e);
+                complete(batch, errors, 0L, e);
+            }
+        }
+
+        /**
+         * 按顺序确认记录：前committed条未进入死信的记录已提交，其余记录以失败结束
+         */
+        private void complete(List<Entry<T>> batch, Throwable[] errors, long committed,
+                Throwable failure) {
+            long succeeded = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                CompletableFuture<Void> future = batch.get(i).future;
+                if (errors[i] != null) {
+                    future.completeExceptionally(errors[i]);
+                } else if (succeeded < committed) {
+                    succeeded++;
+                    future.complete(null);
+                } else {
+                    future.completeExceptionally(failure != null ? failure
+                            : new BatchOperationException("Record was not committed"));
+                }
+            }
+        }
+    }
+}
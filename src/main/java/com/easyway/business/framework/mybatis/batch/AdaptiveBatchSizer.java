@@ -0,0 +1,203 @@
+package com.easyway.business.framework.mybatis.batch;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 自适应批次大小控制器
+ * <p>
+ * 记录每个批次的刷新耗时，按吞吐量（记录数/秒）爬山调整批次大小：吞吐量上升时沿当前方向继续调整，
+ * 下降时反向调整，批次大小限制在[minSize, maxSize]之间；设置了单批耗时上限时，超过上限即缩小批次。
+ * 每个窗口（samplesPerStep个完整批次）调整一次，以平滑单次刷新的抖动
+ * </p>
+ * <p>
+ * 线程安全，并行分区可共用同一实例；同一实例在多次执行之间复用时，会从上次的批次大小继续调整
+ * </p>
+ *
+ * @author xl.liu
+ */
+public class AdaptiveBatchSizer {
+
+    // 每次调整的倍率
+    private static final double GROWTH_FACTOR    = 1.5D;
+    // 吞吐量变化在该比例内视为持平
+    private static final double TOLERANCE        = 0.05D;
+    private static final int    SAMPLES_PER_STEP = 3;
+    private static final int    HISTORY_SIZE     = 64;
+
+    private final int           minSize;
+    private final int           maxSize;
+    // 单批刷新耗时上限（纳秒），小于等于0时不限制
+    private final long          maxFlushNanos;
+
+    private int                 currentSize;
+    // 调整方向，1为增大，-1为减小
+    private int                 direction        = 1;
+    private double              lastThroughput;
+    private long                windowRows;
+    private long                windowNanos;
+    private int                 windowSamples;
+    private final Deque<Sample> history          = new ArrayDeque<>(HISTORY_SIZE);
+
+    public AdaptiveBatchSizer(int minSize, int maxSize) {
+        this(minSize, maxSize, minSize, 0L);
+    }
+
+    /**
+     * @param initialSize 初始批次大小
+     * @param maxFlushMillis 单批刷新耗时上限（毫秒），小于等于0时不限制
+     */
+    public AdaptiveBatchSizer(int minSize, int maxSize, int initialSize, long maxFlushMillis) {
+        if (minSize <= 0 || maxSize < minSize) {
+            throw new IllegalArgumentException(
+                    "Illegal batch size bounds: [" + minSize + ", " + maxSize + "]");
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.currentSize = clamp(initialSize);
+        this.maxFlushNanos = maxFlushMillis > 0 ? maxFlushMillis * 1000000L : 0L;
+    }
+
+    /**
+     * 当前批次大小
+     */
+    public synchronized int getCurrentSize() {
+        return currentSize;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * 最近一个窗口的吞吐量（记录数/秒），尚无完整窗口时为0
+     */
+    public synchronized double getLastThroughput() {
+        return lastThroughput;
+    }
+
+    /**
+     * 最近的批次记录，按时间先后排列，最多保留64条
+     */
+    public synchronized List<Sample> getHistory() {
+        return new ArrayList<>(history);
+    }
+
+    /**
+     * 记录一个批次的执行结果，并在窗口结束时调整批次大小
+     *
+     * @param rows 批次记录数
+     * @param elapsedNanos 写入及刷新耗时
+     */
+    public synchronized void record(int rows, long elapsedNanos) {
+        if (rows <= 0 || elapsedNanos <= 0) {
+            return;
+        }
+        if (history.size() == HISTORY_SIZE) {
+            history.removeFirst();
+        }
+        history.addLast(new Sample(System.currentTimeMillis(), currentSize, rows, elapsedNanos));
+
+        // 数据源末尾的不完整批次不参与调整
+        if (rows < currentSize) {
+            return;
+        }
+        if (maxFlushNanos > 0 && elapsedNanos > maxFlushNanos && currentSize > minSize) {
+            // 单批耗时超过上限，立即缩小
+            direction = -1;
+            resize();
+            return;
+        }
+
+        windowRows += rows;
+        windowNanos += elapsedNanos;
+        if (++windowSamples < SAMPLES_PER_STEP) {
+            return;
+        }
+        double throughput = windowRows * 1000000000D / windowNanos;
+        if (lastThroughput > 0 && throughput < lastThroughput * (1 - TOLERANCE)) {
+            // 吞吐量下降，反向调整
+            direction = -direction;
+        }
+        lastThroughput = throughput;
+        resize();
+    }
+
+    private void resize() {
+        int next = clamp(direction > 0 ? (int) Math.ceil(currentSize * GROWTH_FACTOR)
+                : (int) (currentSize / GROWTH_FACTOR));
+        if (next == currentSize) {
+            // 已到边界，下次反向探测
+            direction = -direction;
+        }
+        currentSize = next;
+        windowRows = 0;
+        windowNanos = 0;
+        windowSamples = 0;
+    }
+
+    private int clamp(int size) {
+        return Math.max(minSize, Math.min(maxSize, size));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "AdaptiveBatchSizer{currentSize=" + currentSize + ", minSize=" + minSize
+                + ", maxSize=" + maxSize + ", lastThroughput=" + (long) lastThroughput + "}";
+    }
+
+    /**
+     * 单个批次的执行记录
+     */
+    public static class Sample {
+        private final long timestamp;
+        private final int  batchSize;
+        private final int  rows;
+        private final long elapsedNanos;
+
+        public Sample(long timestamp, int batchSize, int rows, long elapsedNanos) {
+            this.timestamp = timestamp;
+            this.batchSize = batchSize;
+            this.rows = rows;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * 记录时的批次大小
+         */
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * 吞吐量（记录数/秒）
+         */
+        public double getThroughput() {
+            return rows * 1000000000D / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Sample{batchSize=" + batchSize + ", rows=" + rows + ", elapsedMillis="
+                    + elapsedNanos / 1000000L + "}";
+        }
+    }
+}
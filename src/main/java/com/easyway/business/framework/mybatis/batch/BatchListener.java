@@ -0,0 +1,56 @@
+package com.easyway.business.framework.mybatis.batch;
+
+/**
+ * 批量执行监听器，用于采集批量执行的指标
+ * <p>
+ * 回调在执行批量操作的线程中同步调用，并行执行时会被多个分区线程并发调用，实现须线程安全且尽量轻量；
+ * 回调抛出的异常只记录日志，不影响批量执行
+ * </p>
+ *
+ * @author xl.liu
+ */
+public interface BatchListener {
+
+    /**
+     * 未指定mapper语句（自定义操作）时使用的语句标识
+     */
+    String CUSTOM_STATEMENT = "custom";
+
+    /**
+     * 批量执行开始
+     *
+     * @param partitions 分区数，串行执行时为1
+     */
+    default void onStart(String statementId, int partitions) {
+    }
+
+    /**
+     * 一个批次写入并刷新到数据库
+     *
+     * @param elapsedNanos 写入及刷新耗时
+     */
+    default void onFlush(String statementId, int rows, long elapsedNanos) {
+    }
+
+    /**
+     * 事务提交
+     *
+     * @param rows 本次提交的记录数
+     */
+    default void onCommit(String statementId, long rows, long elapsedNanos) {
+    }
+
+    /**
+     * 事务回滚
+     *
+     * @param rows 回滚的记录数
+     */
+    default void onRollback(String statementId, long rows, Throwable cause) {
+    }
+
+    /**
+     * 批量执行结束，无论成功与否
+     */
+    default void onComplete(String statementId, BatchResult result) {
+    }
+}
@@ -0,0 +1,103 @@
+package com.easyway.business.framework.mybatis.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 批量执行结果，包含各分区的记录数、耗时和失败信息
+ *
+ * @author xl.liu
+ */
+public class BatchResult {
+
+    private static final BatchResult EMPTY = new BatchResult(Collections.emptyList(), 0L);
+
+    private final List<PartitionResult> partitions;
+    // 总耗时（纳秒）
+    private final long                  elapsedNanos;
+
+    public BatchResult(List<PartitionResult> partitions, long elapsedNanos) {
+        this.partitions = Collections.unmodifiableList(new ArrayList<>(partitions));
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public static BatchResult empty() {
+        return EMPTY;
+    }
+
+    public List<PartitionResult> getPartitions() {
+        return partitions;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1000000L;
+    }
+
+    /**
+     * 已处理的记录总数
+     */
+    public long getTotalCount() {
+        long total = 0;
+        for (PartitionResult partition : partitions) {
+            total += partition.getRowCount();
+        }
+        return total;
+    }
+
+    /**
+     * 已提交的记录总数
+     */
+    public long getCommittedCount() {
+        long total = 0;
+        for (PartitionResult partition : partitions) {
+            total += partition.getCommittedCount();
+        }
+        return total;
+    }
+
+    /**
+     * 容错模式下写入死信的记录总数
+     */
+    public long getDeadLetterCount() {
+        long total = 0;
+        for (PartitionResult partition : partitions) {
+            total += partition.getDeadLetterCount();
+        }
+        return total;
+    }
+
+    public boolean isSuccess() {
+        for (PartitionResult partition : partitions) {
+            if (!partition.isSuccess()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 失败的分区
+     */
+    public List<PartitionResult> getFailures() {
+        List<PartitionResult> failures = new ArrayList<>();
+        for (PartitionResult partition : partitions) {
+            if (!partition.isSuccess()) {
+                failures.add(partition);
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{partitions=" + partitions.size() + ", totalCount=" + getTotalCount()
+                + ", committedCount=" + getCommittedCount() + ", deadLetterCount="
+                + getDeadLetterCount() + ", elapsedMillis="
+                + getElapsedMillis() + ", failures=" + getFailures().size() + "}";
+    }
+}
@@ -0,0 +1,32 @@
+package com.easyway.business.framework.mybatis.batch;
+
+/**
+ * 批量任务检查点存储，记录最后一次提交时已处理到的位置，用于任务重启后断点续跑
+ *
+ * @author xl.liu
+ */
+public interface CheckpointStore {
+
+    /**
+     * 读取检查点
+     *
+     * @param key 任务标识
+     * @return 已提交的位置，不存在时返回0
+     */
+    long load(String key);
+
+    /**
+     * 保存检查点，每次提交成功后调用
+     *
+     * @param key    任务标识
+     * @param offset 已提交的位置
+     */
+    void save(String key, long offset);
+
+    /**
+     * 清除检查点，任务全部完成后调用
+     *
+     * @param key 任务标识
+     */
+    void clear(String key);
+}
@@ -0,0 +1,24 @@
+package com.easyway.business.framework.mybatis.batch;
+
+/**
+ * 分区并行批量执行时的提交方式
+ *
+ * @author xl.liu
+ */
+public enum CommitMode {
+
+    /**
+     * 全部分区执行成功后统一提交，任一分区失败则全部回滚
+     * <p>
+     * 各分区使用独立连接，提交阶段逐个提交，并非分布式事务；
+     * 提交阶段本身失败时，已提交的分区无法回滚。已完成的分区保留连接直到统一提交，
+     * 分区数不能超过指定线程池的并发数
+     * </p>
+     */
+    ALL_OR_NOTHING,
+
+    /**
+     * 每个分区独立提交，失败的分区单独回滚，不影响其它分区
+     */
+    PER_PARTITION
+}
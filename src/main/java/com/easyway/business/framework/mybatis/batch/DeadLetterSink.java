@@ -0,0 +1,20 @@
+package com.easyway.business.framework.mybatis.batch;
+
+/**
+ * 死信输出，接收容错模式下执行失败的记录
+ *
+ * @param <T> 记录类型
+ * @author xl.liu
+ */
+@FunctionalInterface
+public interface DeadLetterSink<T> {
+
+    /**
+     * 接收一条失败记录，可能被多个分区线程并发调用
+     *
+     * @param data   失败的记录
+     * @param offset 记录在数据源中的位置
+     * @param error  失败原因
+     */
+    void accept(T data, long offset, Throwable error);
+}
@@ -0,0 +1,91 @@
+package com.easyway.business.framework.mybatis.batch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 基于文件的检查点存储，每个任务一个文件，内容为已提交的位置
+ * <p>
+ * 先写临时文件再原子替换，进程在写入过程中退出不会留下损坏的检查点
+ * </p>
+ *
+ * @author xl.liu
+ */
+public class FileCheckpointStore implements CheckpointStore {
+
+    private static final String SUFFIX = ".checkpoint";
+
+    private final Path          directory;
+
+    public FileCheckpointStore(Path directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Checkpoint directory must not be null");
+        }
+        this.directory = directory;
+    }
+
+    @Override
+    public long load(String key) {
+        Path file = fileOf(key);
+        if (!Files.exists(file)) {
+            return 0L;
+        }
+        try {
+            String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+            return content.isEmpty() ? 0L : Long.parseLong(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read checkpoint " + file, e);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Corrupted checkpoint " + file, e);
+        }
+    }
+
+    @Override
+    public void save(String key, long offset) {
+        Path file = fileOf(key);
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temp, Long.toString(offset).getBytes(StandardCharsets.UTF_8));
+                try {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write checkpoint " + file, e);
+        }
+    }
+
+    @Override
+    public void clear(String key) {
+        Path file = fileOf(key);
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to clear checkpoint " + file, e);
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private Path fileOf(String key) {
+        if (key == null || key.trim().isEmpty()) {
+            throw new IllegalArgumentException("Checkpoint key must not be null or empty");
+        }
+        // 仅保留可作为文件名的字符
+        return directory.resolve(key.replaceAll("[^A-Za-z0-9._#-]", "_") + SUFFIX);
+    }
+}
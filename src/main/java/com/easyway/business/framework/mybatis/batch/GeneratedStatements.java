@@ -0,0 +1,91 @@
+package com.easyway.business.framework.mybatis.batch;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+
+import com.easyway.business.framework.util.StringUtil;
+
+/**
+ * 运行时生成的MyBatis语句，首次使用时注册到Configuration中
+ *
+ * @author xl.liu
+ */
+final class GeneratedStatements {
+
+    // 表名、列名只允许标识符字符，避免拼接SQL注入
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z0-9_$.\"`]+");
+
+    private static final Pattern PROPERTY   = Pattern.compile("[A-Za-z0-9_$.]+");
+
+    private GeneratedStatements() {
+    }
+
+    static String checkIdentifier(String identifier, String kind) {
+        if (identifier == null || !IDENTIFIER.matcher(identifier).matches()) {
+            throw new IllegalArgumentException("Illegal " + kind + " name: " + identifier);
+        }
+        return identifier;
+    }
+
+    static String checkProperty(String property) {
+        if (property == null || !PROPERTY.matcher(property).matches()) {
+            throw new IllegalArgumentException("Illegal property name: " + property);
+        }
+        return property;
+    }
+
+    /**
+     * 列名转驼峰属性名（user_name -> userName）
+     */
+    static String toCamelCase(String column) {
+        return StringUtil.toCamelCase(column);
+    }
+
+    /**
+     * 注册动态语句，同一Configuration只注册一次
+     *
+     * @param script 动态SQL脚本（&lt;script&gt;...&lt;/script&gt;），参数类型为Map
+     * @param resultType 查询语句的结果类型，非查询语句为null
+     */
+    static String register(Configuration configuration, String id, String script,
+            SqlCommandType commandType, Class<?> resultType) {
+        return register(configuration, id, config -> config.getDefaultScriptingLanguageInstance()
+                .createSqlSource(config, script, Map.class), commandType, resultType);
+    }
+
+    /**
+     * 注册语句，同一Configuration只注册一次，sqlSourceFactory仅在首次注册时调用
+     *
+     * @param resultType 查询语句的结果类型，非查询语句为null
+     */
+    static String register(Configuration configuration, String id,
+            Function<Configuration, SqlSource> sqlSourceFactory, SqlCommandType commandType,
+            Class<?> resultType) {
+        if (configuration.hasStatement(id, false)) {
+            return id;
+        }
+        synchronized (configuration) {
+            if (!configuration.hasStatement(id, false)) {
+                MappedStatement.Builder builder = new MappedStatement.Builder(configuration, id,
+                        sqlSourceFactory.apply(configuration), commandType)
+                                .keyGenerator(NoKeyGenerator.INSTANCE);
+                if (resultType != null) {
+                    builder.resultMaps(Collections.singletonList(new ResultMap.Builder(
+                            configuration, id + "-Inline", resultType,
+                            Collections.emptyList()).build()));
+                }
+                configuration.addMappedStatement(builder.build());
+            }
+        }
+        return id;
+    }
+}
@@ -0,0 +1,160 @@
+package com.easyway.business.framework.mybatis.batch;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 内存指标记录器，按mapper语句汇总批量执行的记录数、刷新耗时分布、提交及回滚次数
+ * <p>
+ * 记录只做原子累加，不加锁；可随时查询，查询结果是近似一致的快照
+ * </p>
+ *
+ * <pre>
+ * InMemoryBatchMetrics metrics = new InMemoryBatchMetrics();
+ * BatchSupport.addListener(metrics);
+ * ...
+ * metrics.get("com.example.UserMapper.insert").getFlushLatency().getPercentileNanos(99);
+ * </pre>
+ *
+ * @author xl.liu
+ */
+public class InMemoryBatchMetrics implements BatchListener {
+
+    private final ConcurrentMap<String, StatementMetrics> statements = new ConcurrentHashMap<>();
+
+    @Override
+    public void onStart(String statementId, int partitions) {
+        metrics(statementId).batches.increment();
+    }
+
+    @Override
+    public void onFlush(String statementId, int rows, long elapsedNanos) {
+        StatementMetrics metrics = metrics(statementId);
+        metrics.rows.add(rows);
+        metrics.flushLatency.record(elapsedNanos);
+    }
+
+    @Override
+    public void onCommit(String statementId, long rows, long elapsedNanos) {
+        StatementMetrics metrics = metrics(statementId);
+        metrics.committedRows.add(rows);
+        metrics.commitLatency.record(elapsedNanos);
+    }
+
+    @Override
+    public void onRollback(String statementId, long rows, Throwable cause) {
+        StatementMetrics metrics = metrics(statementId);
+        metrics.rollbacks.increment();
+        metrics.rolledBackRows.add(Math.max(0L, rows));
+    }
+
+    @Override
+    public void onComplete(String statementId, BatchResult result) {
+        if (result != null && !result.isSuccess()) {
+            metrics(statementId).failures.increment();
+        }
+    }
+
+    /**
+     * 指定语句的指标，尚无记录时返回null
+     */
+    public StatementMetrics get(String statementId) {
+        return statements.get(statementId);
+    }
+
+    /**
+     * 全部语句的指标
+     */
+    public Map<String, StatementMetrics> getAll() {
+        return Collections.unmodifiableMap(statements);
+    }
+
+    public void reset() {
+        statements.clear();
+    }
+
+    private StatementMetrics metrics(String statementId) {
+        String key = statementId != null ? statementId : CUSTOM_STATEMENT;
+        StatementMetrics metrics = statements.get(key);
+        return metrics != null ? metrics
+                : statements.computeIfAbsent(key, k -> new StatementMetrics());
+    }
+
+    /**
+     * 单个语句的汇总指标
+     */
+    public static class StatementMetrics {
+        private final LongAdder        batches        = new LongAdder();
+        private final LongAdder        rows           = new LongAdder();
+        private final LongAdder        committedRows  = new LongAdder();
+        private final LongAdder        rollbacks      = new LongAdder();
+        private final LongAdder        rolledBackRows = new LongAdder();
+        private final LongAdder        failures       = new LongAdder();
+        private final LatencyHistogram flushLatency   = new LatencyHistogram();
+        private final LatencyHistogram commitLatency  = new LatencyHistogram();
+
+        /**
+         * 批量执行次数
+         */
+        public long getBatchCount() {
+            return batches.sum();
+        }
+
+        /**
+         * 已刷新的记录数
+         */
+        public long getRowCount() {
+            return rows.sum();
+        }
+
+        public long getCommittedRowCount() {
+            return committedRows.sum();
+        }
+
+        public long getRollbackCount() {
+            return rollbacks.sum();
+        }
+
+        public long getRolledBackRowCount() {
+            return rolledBackRows.sum();
+        }
+
+        /**
+         * 以失败结束的批量执行次数
+         */
+        public long getFailureCount() {
+            return failures.sum();
+        }
+
+        public long getFlushCount() {
+            return flushLatency.getCount();
+        }
+
+        /**
+         * 刷新吞吐量（记录数/秒），按累计刷新耗时计算，不含读取数据源的时间
+         */
+        public double getRowsPerSecond() {
+            long nanos = flushLatency.getTotalNanos();
+            return nanos == 0 ? 0D : rows.sum() * 1000000000D / nanos;
+        }
+
+        public LatencyHistogram getFlushLatency() {
+            return flushLatency;
+        }
+
+        public LatencyHistogram getCommitLatency() {
+            return commitLatency;
+        }
+
+        @Override
+        public String toString() {
+            return "StatementMetrics{batches=" + getBatchCount() + ", rows=" + getRowCount()
+                    + ", committedRows=" + getCommittedRowCount() + ", rollbacks="
+                    + getRollbackCount() + ", failures=" + getFailureCount() + ", rowsPerSecond="
+                    + (long) getRowsPerSecond() + ", flushLatency=" + flushLatency + "}";
+        }
+    }
+}
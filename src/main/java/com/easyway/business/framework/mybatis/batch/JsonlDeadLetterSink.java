@@ -0,0 +1,77 @@
+package com.easyway.business.framework.mybatis.batch;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+
+/**
+ * 以JSON Lines格式追加写入文件的死信输出，每条失败记录一行：
+ * <pre>
+ * {"offset":123,"error":"java.sql.SQLException: ...","data":{...}}
+ * </pre>
+ *
+ * @author xl.liu
+ */
+public class JsonlDeadLetterSink<T> implements DeadLetterSink<T>, Closeable {
+
+    private final Path           file;
+    private final BufferedWriter writer;
+
+    public JsonlDeadLetterSink(Path file) {
+        if (file == null) {
+            throw new IllegalArgumentException("Dead letter file must not be null");
+        }
+        this.file = file;
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open dead letter file " + file, e);
+        }
+    }
+
+    @Override
+    public synchronized void accept(T data, long offset, Throwable error) {
+        JSONObject line = new JSONObject(true);
+        line.put("offset", offset);
+        line.put("error", rootCause(error).toString());
+        line.put("data", data);
+        try {
+            writer.write(JSON.toJSONString(line));
+            writer.newLine();
+            // 死信很少出现，逐条刷盘避免进程退出时丢失
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write dead letter file " + file, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    private static Throwable rootCause(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
@@ -0,0 +1,136 @@
+package com.easyway.business.framework.mybatis.batch;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.SqlSession;
+
+/**
+ * 按键拆分的批量插入或更新
+ * <p>
+ * 每个批次先按键分组执行 SELECT key FROM table WHERE key IN (...) 查询已存在的键，
+ * 再将记录拆分为插入组和更新组，在同一会话中依次批量执行。批次内重复的新键第一条插入，其余更新。
+ * 键为null的记录（如自增主键）直接插入
+ * </p>
+ * <p>
+ * 查询与写入之间没有加锁，并发写入同一键时仍可能违反唯一约束，此时可配合容错模式使用，
+ * 或在数据库支持时改用合并语句（{@link MultiRowInsert}）
+ * </p>
+ *
+ * @author xl.liu
+ */
+public class KeyedUpsert<T> {
+
+    private static final String          STATEMENT_PREFIX = KeyedUpsert.class.getName();
+
+    private static final String          LIST_KEY         = "list";
+
+    private final Function<? super T, ?> keyExtractor;
+    private final String                 insertStatement;
+    private final String                 updateStatement;
+    // 每次IN查询的键数量上限
+    private final int                    maxInKeys;
+    private final String                 statementId;
+    private final String                 script;
+
+    /**
+     * @param keyExtractor 从记录中取键，与keyColumn对应
+     * @param insertStatement 插入语句的完整名称
+     * @param updateStatement 更新语句的完整名称
+     * @param maxInKeys 每次IN查询的键数量上限
+     */
+    public KeyedUpsert(String table, String keyColumn, Function<? super T, ?> keyExtractor,
+            String insertStatement, String updateStatement, int maxInKeys) {
+        GeneratedStatements.checkIdentifier(table, "table");
+        GeneratedStatements.checkIdentifier(keyColumn, "column");
+        if (keyExtractor == null || insertStatement == null || updateStatement == null) {
+            throw new IllegalArgumentException(
+                    "keyExtractor, insertStatement and updateStatement must not be null");
+        }
+        this.keyExtractor = keyExtractor;
+        this.insertStatement = insertStatement;
+        this.updateStatement = updateStatement;
+        this.maxInKeys = Math.max(1, maxInKeys);
+        this.statementId = STATEMENT_PREFIX + "." + table + "." + keyColumn;
+        this.script = "<script>select " + keyColumn + " from " + table + " where " + keyColumn
+                + " in <foreach collection=\"" + LIST_KEY
+                + "\" item=\"item\" open=\"(\" separator=\",\" close=\")\">#{item}</foreach></script>";
+    }
+
+    /**
+     * 写入一个批次
+     */
+    public void write(SqlSession session, List<T> rows) {
+        Set<Object> existing = findExisting(session, rows);
+        List<T> updates = new ArrayList<>();
+        for (T row : rows) {
+            Object key = normalize(keyExtractor.apply(row));
+            if (key != null && existing.contains(key)) {
+                updates.add(row);
+            } else {
+                session.insert(insertStatement, row);
+                if (key != null) {
+                    existing.add(key);
+                }
+            }
+        }
+        for (T row : updates) {
+            session.update(updateStatement, row);
+        }
+    }
+
+    /**
+     * 分组查询批次中已存在的键
+     */
+    private Set<Object> findExisting(SqlSession session, List<T> rows) {
+        Set<Object> keys = new LinkedHashSet<>();
+        for (T row : rows) {
+            Object key = keyExtractor.apply(row);
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+        Set<Object> existing = new HashSet<>();
+        if (keys.isEmpty()) {
+            return existing;
+        }
+        String statement = GeneratedStatements.register(session.getConfiguration(), statementId,
+                script, SqlCommandType.SELECT, Object.class);
+        List<Object> keyList = new ArrayList<>(keys);
+        for (int from = 0; from < keyList.size(); from += maxInKeys) {
+            Map<String, Object> parameter = new HashMap<>(2);
+            parameter.put(LIST_KEY, keyList.subList(from, Math.min(keyList.size(), from + maxInKeys)));
+            for (Object key : session.selectList(statement, parameter)) {
+                existing.add(normalize(key));
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * 整数类型的键统一为BigDecimal比较，避免实体中的Long与数据库返回的Integer、BigDecimal不相等
+     */
+    private static Object normalize(Object key) {
+        if (key instanceof Long || key instanceof Integer || key instanceof Short
+                || key instanceof Byte) {
+            return BigDecimal.valueOf(((Number) key).longValue());
+        }
+        if (key instanceof BigInteger) {
+            return new BigDecimal((BigInteger) key);
+        }
+        if (key instanceof BigDecimal) {
+            BigDecimal decimal = ((BigDecimal) key).stripTrailingZeros();
+            return decimal.scale() < 0 ? decimal.setScale(0) : decimal;
+        }
+        return key;
+    }
+}
@@ -0,0 +1,282 @@
+package com.easyway.business.framework.mybatis.batch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+
+import com.easyway.business.framework.mybatis.SqlDialect;
+
+/**
+ * 多行插入语句，将多条记录合并为一条 INSERT ... VALUES (...), (...) 语句执行
+ * <p>
+ * 部分驱动（未开启rewriteBatchedStatements的MySQL、旧版Oracle）执行JDBC批处理时每条记录一次往返，
+ * 合并为多行插入可显著减少往返次数。每条语句包含的记录数受绑定参数上限约束
+ * </p>
+ * <p>
+ * 语句在首次使用时注册到MyBatis的Configuration中，SQL按记录数直接拼接占位符，不使用动态SQL的foreach：
+ * 上千条记录时foreach逐项求值、绑定的耗时超过语句本身的执行时间
+ * </p>
+ * <p>
+ * 指定了合并键时生成合并语句，键已存在的记录更新其余列，不存在的插入：MySQL使用ON DUPLICATE KEY UPDATE，
+ * PostgreSQL使用ON CONFLICT，H2使用MERGE INTO ... KEY，Oracle使用MERGE INTO ... USING
+ * </p>
+ *
+ * @author xl.liu
+ */
+public class MultiRowInsert {
+
+    private static final String STATEMENT_PREFIX = MultiRowInsert.class.getName();
+
+    private static final String LIST_KEY         = "list";
+
+    private final String        table;
+    private final String[]      columns;
+    private final String[]      properties;
+    // 合并键，为空时只插入
+    private final String[]      keyColumns;
+    private final SqlDialect    dialect;
+    private final String        statementId;
+    // 语句 = prefix + rowSql（以separator连接，每条记录一个） + suffix，rowSql中每列一个占位符
+    private String              prefix;
+    private String              rowSql;
+    private String              separator;
+    private String              suffix       = "";
+
+    /**
+     * @param properties 与列对应的实体属性名，为空时按列名转驼峰（user_name -> userName）
+     */
+    public MultiRowInsert(String table, String[] columns, String[] properties, SqlDialect dialect) {
+        this(table, columns, properties, dialect, null);
+    }
+
+    /**
+     * @param keyColumns 合并键（唯一约束的列），不为空时生成合并语句
+     */
+    public MultiRowInsert(String table, String[] columns, String[] properties, SqlDialect dialect,
+            String[] keyColumns) {
+        if (columns == null || columns.length == 0) {
+            throw new IllegalArgumentException("columns must not be empty");
+        }
+        if (properties != null && properties.length != columns.length) {
+            throw new IllegalArgumentException("properties must match columns");
+        }
+        this.table = GeneratedStatements.checkIdentifier(table, "table");
+        this.columns = columns.clone();
+        this.properties = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            GeneratedStatements.checkIdentifier(columns[i], "column");
+            this.properties[i] = GeneratedStatements.checkProperty(properties != null
+                    ? properties[i] : GeneratedStatements.toCamelCase(columns[i]));
+        }
+        this.dialect = dialect != null ? dialect : SqlDialect.GENERIC;
+        this.keyColumns = keyColumns != null && keyColumns.length > 0 ? keyColumns.clone() : null;
+        if (this.keyColumns != null) {
+            if (!this.dialect.supportsMerge()) {
+                throw new IllegalStateException("Merge is not supported by dialect " + this.dialect);
+            }
+            for (String key : this.keyColumns) {
+                if (!Arrays.asList(this.columns).contains(key)) {
+                    throw new IllegalArgumentException("Key column is not inserted: " + key);
+                }
+            }
+        }
+        this.statementId = STATEMENT_PREFIX + "." + this.dialect.name().toLowerCase() + "."
+                + table + "(" + String.join(",", this.columns) + ")"
+                + "[" + String.join(",", this.properties) + "]"
+                + (this.keyColumns != null ? "on(" + String.join(",", this.keyColumns) + ")" : "");
+        buildTemplate();
+    }
+
+    /**
+     * 每条语句包含的记录数，不超过batchSize且绑定参数数量不超过maxBindParameters
+     *
+     * @param maxBindParameters 小于等于0时使用方言的默认上限
+     */
+    public int rowsPerStatement(int batchSize, int maxBindParameters) {
+        int limit = maxBindParameters > 0 ? maxBindParameters : dialect.getMaxBindParameters();
+        return Math.max(1, Math.min(batchSize, limit / columns.length));
+    }
+
+    /**
+     * 将rows按每组rowsPerStatement条拼成多行插入语句执行
+     */
+    public <T> void insert(SqlSession session, List<T> rows, int rowsPerStatement) {
+        String statement = GeneratedStatements.register(session.getConfiguration(), statementId,
+                RowsSqlSource::new, SqlCommandType.INSERT, null);
+        for (int from = 0; from < rows.size(); from += rowsPerStatement) {
+            int to = Math.min(rows.size(), from + rowsPerStatement);
+            Map<String, Object> parameter = new HashMap<>(2);
+            parameter.put(LIST_KEY, new ArrayList<>(rows.subList(from, to)));
+            session.insert(statement, parameter);
+        }
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public List<String> getColumns() {
+        return Collections.unmodifiableList(Arrays.asList(columns));
+    }
+
+    public SqlDialect getDialect() {
+        return dialect;
+    }
+
+    public boolean isMerge() {
+        return keyColumns != null;
+    }
+
+    private void buildTemplate() {
+        String columnList = String.join(", ", columns);
+        String placeholders = String.join(", ", Collections.nCopies(columns.length, "?"));
+        if (keyColumns != null && dialect == SqlDialect.ORACLE) {
+            buildOracleMerge();
+        } else if (keyColumns != null && dialect == SqlDialect.H2) {
+            prefix = "merge into " + table + " (" + columnList + ") key ("
+                    + String.join(", ", keyColumns) + ") values ";
+            rowSql = "(" + placeholders + ")";
+            separator = ", ";
+        } else if (dialect.supportsMultiRowValues()) {
+            prefix = "insert into " + table + " (" + columnList + ") values ";
+            rowSql = "(" + placeholders + ")";
+            separator = ", ";
+            if (keyColumns != null) {
+                suffix = conflictClause();
+            }
+        } else {
+            prefix = "insert all ";
+            rowSql = "into " + table + " (" + columnList + ") values (" + placeholders + ")";
+            separator = " ";
+            suffix = " select 1 from dual";
+        }
+    }
+
+    /**
+     * MySQL、PostgreSQL的冲突处理子句
+     */
+    private String conflictClause() {
+        List<String> updates = updateColumns();
+        StringBuilder clause = new StringBuilder();
+        if (dialect == SqlDialect.MYSQL) {
+            clause.append(" on duplicate key update ");
+            if (updates.isEmpty()) {
+                clause.append(keyColumns[0]).append(" = ").append(keyColumns[0]);
+            }
+            for (int i = 0; i < updates.size(); i++) {
+                clause.append(i > 0 ? ", " : "").append(updates.get(i)).append(" = values(")
+                        .append(updates.get(i)).append(')');
+            }
+        } else {
+            clause.append(" on conflict (").append(String.join(", ", keyColumns)).append(") do ");
+            if (updates.isEmpty()) {
+                clause.append("nothing");
+            } else {
+                clause.append("update set ");
+                for (int i = 0; i < updates.size(); i++) {
+                    clause.append(i > 0 ? ", " : "").append(updates.get(i))
+                            .append(" = excluded.").append(updates.get(i));
+                }
+            }
+        }
+        return clause.toString();
+    }
+
+    private void buildOracleMerge() {
+        prefix = "merge into " + table + " d using (";
+        StringBuilder row = new StringBuilder("select ");
+        for (int i = 0; i < columns.length; i++) {
+            row.append(i > 0 ? ", " : "").append("? ").append(columns[i]);
+        }
+        rowSql = row.append(" from dual").toString();
+        separator = " union all ";
+
+        StringBuilder tail = new StringBuilder(") s on (");
+        for (int i = 0; i < keyColumns.length; i++) {
+            tail.append(i > 0 ? " and " : "").append("d.").append(keyColumns[i])
+                    .append(" = s.").append(keyColumns[i]);
+        }
+        tail.append(')');
+        List<String> updates = updateColumns();
+        if (!updates.isEmpty()) {
+            tail.append(" when matched then update set ");
+            for (int i = 0; i < updates.size(); i++) {
+                tail.append(i > 0 ? ", " : "").append("d.").append(updates.get(i))
+                        .append(" = s.").append(updates.get(i));
+            }
+        }
+        tail.append(" when not matched then insert (").append(String.join(", ", columns))
+                .append(") values (");
+        for (int i = 0; i < columns.length; i++) {
+            tail.append(i > 0 ? ", " : "").append("s.").append(columns[i]);
+        }
+        suffix = tail.append(')').toString();
+    }
+
+    /**
+     * 合并时更新的列：除合并键以外的全部列
+     */
+    private List<String> updateColumns() {
+        List<String> keys = Arrays.asList(keyColumns);
+        List<String> updates = new ArrayList<>(columns.length);
+        for (String column : columns) {
+            if (!keys.contains(column)) {
+                updates.add(column);
+            }
+        }
+        return updates;
+    }
+
+    /**
+     * 按参数中的记录数生成SQL，参数映射按记录、列的顺序排列（list[i].property），
+     * 记录数较少的语句复用记录数较多时生成的映射前缀
+     */
+    private final class RowsSqlSource implements SqlSource {
+
+        private final Configuration             configuration;
+        private volatile List<ParameterMapping> mappings = Collections.emptyList();
+
+        RowsSqlSource(Configuration configuration) {
+            this.configuration = configuration;
+        }
+
+        @Override
+        public BoundSql getBoundSql(Object parameterObject) {
+            int rows = ((List<?>) ((Map<?, ?>) parameterObject).get(LIST_KEY)).size();
+            StringBuilder sql = new StringBuilder(prefix.length() + suffix.length()
+                    + rows * (rowSql.length() + separator.length()));
+            sql.append(prefix);
+            for (int i = 0; i < rows; i++) {
+                sql.append(i > 0 ? separator : "").append(rowSql);
+            }
+            sql.append(suffix);
+            return new BoundSql(configuration, sql.toString(), mappingsFor(rows), parameterObject);
+        }
+
+        private List<ParameterMapping> mappingsFor(int rows) {
+            int size = rows * properties.length;
+            List<ParameterMapping> current = mappings;
+            if (current.size() < size) {
+                List<ParameterMapping> grown = new ArrayList<>(size);
+                for (int i = 0; i < rows; i++) {
+                    for (String property : properties) {
+                        grown.add(new ParameterMapping.Builder(configuration,
+                                LIST_KEY + "[" + i + "]." + property, Object.class).build());
+                    }
+                }
+                mappings = current = Collections.unmodifiableList(grown);
+            }
+            return current.subList(0, size);
+        }
+    }
+}
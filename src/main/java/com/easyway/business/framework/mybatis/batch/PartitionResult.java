@@ -0,0 +1,114 @@
+package com.easyway.business.framework.mybatis.batch;
+
+/**
+ * 单个分区的批量执行结果
+ *
+ * @author xl.liu
+ */
+public class PartitionResult {
+
+    // 分区序号
+    private final int       index;
+    // 分区在原始数据中的起始位置
+    private final long      offset;
+    // 已处理的记录数
+    private final long      rowCount;
+    // 已提交的记录数
+    private final long      committedCount;
+    // 写入死信的记录数
+    private final long      deadLetterCount;
+    // 耗时（纳秒）
+    private final long      elapsedNanos;
+    // 是否已提交
+    private final boolean   committed;
+    // 失败原因
+    private final Throwable failure;
+
+    public PartitionResult(int index, long offset, long rowCount, long elapsedNanos,
+            boolean committed, Throwable failure) {
+        this(index, offset, rowCount, committed ? rowCount : 0L, elapsedNanos, committed, failure);
+    }
+
+    /**
+     * @param committedCount 分批提交时已提交的记录数
+     */
+    public PartitionResult(int index, long offset, long rowCount, long committedCount,
+            long elapsedNanos, boolean committed, Throwable failure) {
+        this(index, offset, rowCount, committedCount, 0L, elapsedNanos, committed, failure);
+    }
+
+    /**
+     * @param deadLetterCount 容错模式下写入死信的记录数
+     */
+    public PartitionResult(int index, long offset, long rowCount, long committedCount,
+            long deadLetterCount, long elapsedNanos, boolean committed, Throwable failure) {
+        this.index = index;
+        this.offset = offset;
+        this.rowCount = rowCount;
+        this.committedCount = committedCount;
+        this.deadLetterCount = deadLetterCount;
+        this.elapsedNanos = elapsedNanos;
+        this.committed = committed;
+        this.failure = failure;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getCommittedCount() {
+        return committedCount;
+    }
+
+    public long getDeadLetterCount() {
+        return deadLetterCount;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1000000L;
+    }
+
+    /**
+     * 是否已全部提交
+     */
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    /**
+     * 复制结果并修改提交状态
+     */
+    public PartitionResult withCommitted(boolean committed, Throwable failure) {
+        return new PartitionResult(index, offset, rowCount,
+                committed ? rowCount - deadLetterCount : committedCount, deadLetterCount,
+                elapsedNanos, committed, failure);
+    }
+
+    @Override
+    public String toString() {
+        return "PartitionResult{index=" + index + ", offset=" + offset + ", rowCount=" + rowCount
+                + ", committedCount=" + committedCount + ", deadLetterCount=" + deadLetterCount
+                + ", elapsedMillis=" + getElapsedMillis()
+                + ", committed=" + committed + ", failure=" + (failure == null ? null : failure.toString()) + "}";
+    }
+}
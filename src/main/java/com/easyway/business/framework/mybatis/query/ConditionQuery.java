@@ -4,15 +4,20 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 
 import com.easyway.business.framework.mybatis.query.condition.Condition;
 
 public class ConditionQuery {
 
+    // 每次从数据库读取的记录数参数，由FetchSizeInterceptor设置到Statement上
+    public static final String  FETCH_SIZE               = "fetchSize";
+
     private List<Condition>     criteriaWithBetweenValue = new ArrayList<Condition>();
     private List<Condition>     criteriaWithoutValue     = new ArrayList<Condition>();
     private List<Condition>     criteriaWithSingleValue  = new ArrayList<Condition>();
     private List<Condition>     criteriaWithListValue    = new ArrayList<Condition>();
+    private List<Condition>     criteriaWithSeekValue    = new ArrayList<Condition>();
     private Map<String, Object> paramMap                 = new HashMap<String, Object>();
 
     public List<Condition> getCriteriaWithBetweenValue() {
@@ -47,6 +52,14 @@ public class ConditionQuery {
         this.criteriaWithListValue = criteriaWithListValue;
     }
 
+    public List<Condition> getCriteriaWithSeekValue() {
+        return this.criteriaWithSeekValue;
+    }
+
+    public void setCriteriaWithSeekValue(List<Condition> criteriaWithSeekValue) {
+        this.criteriaWithSeekValue = criteriaWithSeekValue;
+    }
+
     public void addBetweenValueCondition(Condition condition) {
         this.criteriaWithBetweenValue.add(condition);
     }
@@ -63,6 +76,10 @@ public class ConditionQuery {
         this.criteriaWithListValue.add(condition);
     }
 
+    public void addSeekValueCondition(Condition condition) {
+        this.criteriaWithSeekValue.add(condition);
+    }
+
     public void add(Condition condition) {
         if (condition != null) {
             condition.addConditionToQuery(this);
@@ -85,12 +102,22 @@ public class ConditionQuery {
         this.paramMap.putAll(map);
     }
 
+    /**
+     * 设置每次从数据库读取的记录数，MySQL流式读取使用Integer.MIN_VALUE
+     * 
+     * @param fetchSize
+     */
+    public void setFetchSize(int fetchSize) {
+        this.paramMap.put(FETCH_SIZE, Integer.valueOf(fetchSize));
+    }
+
     public List<Condition> getAllCondition() {
         List<Condition> ret = new ArrayList<Condition>();
         ret.addAll(this.criteriaWithoutValue);
         ret.addAll(this.criteriaWithSingleValue);
         ret.addAll(this.criteriaWithListValue);
         ret.addAll(this.criteriaWithBetweenValue);
+        ret.addAll(this.criteriaWithSeekValue);
         return ret;
     }
 
@@ -98,6 +125,44 @@ public class ConditionQuery {
         return this.paramMap;
     }
     
+    /**
+     * 以?占位符生成where条件（不含where关键字），参数值按顺序加入binds，
+     * 条件顺序与conditionQuery.xml一致
+     * 
+     * @param binds
+     * @return String
+     */
+    public String toSql(List<Object> binds) {
+        StringBuilder sb = new StringBuilder();
+        for (Condition condition : getAllCondition()) {
+            String sql = condition.toSql(binds);
+            if (sql == null || sql.isEmpty()) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append(" and ");
+            }
+            boolean raw = this.criteriaWithoutValue.contains(condition);
+            sb.append(raw ? "(" : "").append(sql).append(raw ? ")" : "");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 语句结构键：占位符条件、参数名及排序，值不同而结构相同的查询键相同
+     * 
+     * @return String
+     */
+    public String getShapeKey() {
+        StringBuilder sb = new StringBuilder(toSql(new ArrayList<Object>()));
+        sb.append('|').append(new TreeSet<String>(this.paramMap.keySet()));
+        Object orderCol = this.paramMap.get("orderCol");
+        if (orderCol != null) {
+            sb.append('|').append(orderCol);
+        }
+        return sb.toString();
+    }
+
     public ConditionQuery cloneConditionQuery() {
         ConditionQuery query = new ConditionQuery();
         query.addAll(this.getAllCondition());
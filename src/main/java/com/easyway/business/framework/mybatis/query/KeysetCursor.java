@@ -0,0 +1,136 @@
+package com.easyway.business.framework.mybatis.query;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Date;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONException;
+import com.alibaba.fastjson.JSONObject;
+
+/**
+ * 键集分页游标，将上一页最后一条记录的排序键编码为不透明的字符串
+ * <p>
+ * 游标内容为 {"o": 排序签名, "v": [带类型前缀的键值]} 的JSON，再以URL安全的Base64编码。
+ * 排序签名用于发现排序方式已改变的旧游标，此时{@link #decode(String, String)}返回null，从第一页开始
+ * </p>
+ *
+ * @author xl.liu
+ */
+public final class KeysetCursor {
+
+    private static final String     ORDER_KEY  = "o";
+    private static final String     VALUES_KEY = "v";
+
+    private static final BigDecimal LONG_MAX   = BigDecimal.valueOf(Long.MAX_VALUE);
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * @param orderSignature 排序签名，如 "create_time desc,id desc"
+     * @param values 排序键，支持字符串、数字、Date、Timestamp（保留纳秒）、LocalDate、LocalDateTime
+     */
+    public static String encode(String orderSignature, Object[] values) {
+        JSONArray array = new JSONArray(values.length);
+        for (Object value : values) {
+            array.add(toTyped(value));
+        }
+        JSONObject json = new JSONObject(true);
+        json.put(ORDER_KEY, orderSignature);
+        json.put(VALUES_KEY, array);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(json.toJSONString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     *
+     * @return 排序键，排序签名不一致时返回null
+     * @throws IllegalArgumentException 游标格式错误
+     */
+    public static Object[] decode(String cursor, String orderSignature) {
+        JSONObject json;
+        try {
+            json = JSON.parseObject(new String(Base64.getUrlDecoder().decode(cursor),
+                    StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException | JSONException e) {
+            throw new IllegalArgumentException("Invalid keyset cursor: " + cursor, e);
+        }
+        if (json == null || !(json.get(VALUES_KEY) instanceof JSONArray)) {
+            throw new IllegalArgumentException("Invalid keyset cursor: " + cursor);
+        }
+        if (orderSignature != null && !orderSignature.equals(json.getString(ORDER_KEY))) {
+            return null;
+        }
+        JSONArray array = json.getJSONArray(VALUES_KEY);
+        Object[] values = new Object[array.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = fromTyped(array.getString(i), cursor);
+        }
+        return values;
+    }
+
+    private static String toTyped(Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Keyset values must not be null");
+        }
+        if (value instanceof Timestamp) {
+            return "p:" + ((Timestamp) value).toInstant();
+        }
+        if (value instanceof Date) {
+            return "d:" + ((Date) value).getTime();
+        }
+        if (value instanceof LocalDateTime) {
+            return "t:" + value;
+        }
+        if (value instanceof LocalDate) {
+            return "l:" + value;
+        }
+        if (value instanceof BigDecimal) {
+            return "n:" + ((BigDecimal) value).toPlainString();
+        }
+        if (value instanceof Number) {
+            return "n:" + value;
+        }
+        return "s:" + value;
+    }
+
+    private static Object fromTyped(String typed, String cursor) {
+        if (typed == null || typed.length() < 2 || typed.charAt(1) != ':') {
+            throw new IllegalArgumentException("Invalid keyset cursor: " + cursor);
+        }
+        String text = typed.substring(2);
+        try {
+            switch (typed.charAt(0)) {
+                case 'p':
+                    return Timestamp.from(Instant.parse(text));
+                case 'd':
+                    return new Date(Long.parseLong(text));
+                case 't':
+                    return LocalDateTime.parse(text);
+                case 'l':
+                    return LocalDate.parse(text);
+                case 'n':
+                    BigDecimal number = new BigDecimal(text);
+                    if (number.scale() <= 0 && number.abs().compareTo(LONG_MAX) <= 0) {
+                        return number.longValue();
+                    }
+                    return number;
+                case 's':
+                    return text;
+                default:
+                    break;
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid keyset cursor: " + cursor, e);
+        }
+        throw new IllegalArgumentException("Invalid keyset cursor: " + cursor);
+    }
+}
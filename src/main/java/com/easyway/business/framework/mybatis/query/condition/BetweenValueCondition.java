@@ -1,5 +1,7 @@
 package com.easyway.business.framework.mybatis.query.condition;
 
+import java.util.List;
+
 import com.easyway.business.framework.mybatis.query.ConditionQuery;
 
 public class BetweenValueCondition extends Condition {
@@ -57,4 +59,10 @@ public class BetweenValueCondition extends Condition {
 		sb.append("'");
 		return sb.toString();
 	}
+
+	public String toSql(List<Object> binds) {
+		binds.add(this.beginValue);
+		binds.add(this.endValue);
+		return this.getColumnWithTableAlias() + " between ? and ?";
+	}
 }
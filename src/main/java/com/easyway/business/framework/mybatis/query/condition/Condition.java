@@ -1,5 +1,7 @@
 package com.easyway.business.framework.mybatis.query.condition;
 
+import java.util.List;
+
 import com.easyway.business.framework.mybatis.query.ConditionQuery;
 
 public abstract class Condition {
@@ -25,4 +27,11 @@ public abstract class Condition {
 	}
 
 	public abstract String toSql();
+
+	/**
+	 * 以?占位符生成SQL，参数值按顺序加入binds；值不同而结构相同的条件生成相同的SQL
+	 */
+	public String toSql(List<Object> binds) {
+		return toSql();
+	}
 }
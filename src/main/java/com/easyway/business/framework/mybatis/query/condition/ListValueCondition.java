@@ -1,13 +1,29 @@
 package com.easyway.business.framework.mybatis.query.condition;
 
+import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import com.easyway.business.framework.constant.Constant;
+import com.easyway.business.framework.mybatis.SqlDialect;
 import com.easyway.business.framework.mybatis.query.ConditionQuery;
 
+/**
+ * 列表条件 col in (...)
+ * <p>
+ * 值的数量超过chunkSize时拆分为多个列表：in拆分为 (col in (...) or col in (...))，
+ * not in拆分为 (col not in (...) and col not in (...))，避免超出数据库单个列表的长度限制（Oracle为1000）。
+ * 通过{@link #setArrayBind(SqlDialect, int)}开启后，数据库支持数组参数且值的数量不少于阈值时，
+ * 整个列表作为一个数组参数绑定（col = any (?)），SQL长度与值的数量无关
+ * </p>
+ */
 public class ListValueCondition extends Condition {
+	// 单个列表的最大长度
+	private static volatile int chunkSize = 1000;
+	// 使用数组参数的最小长度，小于等于0时不使用
+	private static volatile int arrayBindThreshold = 0;
 	private String column;
 	private String equal;
 	private List<Object> value = new ArrayList<Object>();
@@ -33,11 +49,7 @@ public class ListValueCondition extends Condition {
 	public ListValueCondition(String condition, String equal, Object[] value) {
 		this.column = condition;
 		this.equal = equal;
-		List<Object> list = new LinkedList<Object>();
-        for (Object obj : value) {
-            list.add(obj);
-        }
-		this.value = list;
+		this.value = new ArrayList<Object>(Arrays.asList(value));
 	}
 
 	public ListValueCondition(String tableAlias, String condition, String equal, List<Object> value) {
@@ -78,6 +90,109 @@ public class ListValueCondition extends Condition {
 		this.value.add(value);
 	}
 
+	/**
+	 * 设置单个列表的最大长度，默认1000
+	 * 
+	 * @param size
+	 */
+	public static void setChunkSize(int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("chunkSize must be positive");
+		}
+		chunkSize = size;
+	}
+
+	public static int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * 设置数组参数绑定，dialect不支持数组参数时关闭
+	 * 
+	 * @param dialect 数据库方言
+	 * @param threshold 使用数组参数的最小长度，小于等于0时关闭
+	 */
+	public static void setArrayBind(SqlDialect dialect, int threshold) {
+		arrayBindThreshold = dialect != null && dialect.supportsArrayBind() ? threshold : 0;
+	}
+
+	public static int getArrayBindThreshold() {
+		return arrayBindThreshold;
+	}
+
+	/**
+	 * 拆分后的列表，值的数量不超过chunkSize时只有一个
+	 */
+	public List<List<Object>> getChunks() {
+		int size = this.value.size();
+		int chunk = chunkSize;
+		if (size <= chunk) {
+			return Collections.singletonList(this.value);
+		}
+		List<List<Object>> chunks = new ArrayList<List<Object>>((size + chunk - 1) / chunk);
+		for (int from = 0; from < size; from += chunk) {
+			chunks.add(this.value.subList(from, Math.min(size, from + chunk)));
+		}
+		return chunks;
+	}
+
+	/**
+	 * 拆分后各列表之间的连接符
+	 */
+	public String getChunkJoin() {
+		return isNegated() ? "and" : "or";
+	}
+
+	/**
+	 * 是否以数组参数绑定
+	 */
+	public boolean isArrayBind() {
+		int threshold = arrayBindThreshold;
+		return threshold > 0 && this.value.size() >= threshold && arrayComponentType() != null
+				&& (Constant.IN.equals(normalizedEqual()) || isNegated());
+	}
+
+	/**
+	 * 数组参数的比较运算符：in为= any，not in为&lt;&gt; all
+	 */
+	public String getArrayOperator() {
+		return isNegated() ? "<> all" : "= any";
+	}
+
+	/**
+	 * 数组参数，元素类型与值的类型一致，以便确定数据库数组类型
+	 */
+	public Object getArrayValue() {
+		Class<?> type = arrayComponentType();
+		Object array = Array.newInstance(type != null ? type : Object.class, this.value.size());
+		for (int i = 0; i < this.value.size(); i++) {
+			Array.set(array, i, this.value.get(i));
+		}
+		return array;
+	}
+
+	private String normalizedEqual() {
+		return this.equal == null ? "" : this.equal.trim().toLowerCase().replaceAll("\\s+", " ");
+	}
+
+	private boolean isNegated() {
+		return Constant.NOT_IN.equals(normalizedEqual());
+	}
+
+	/**
+	 * 值的类型都相同且不为null时返回该类型
+	 */
+	private Class<?> arrayComponentType() {
+		Class<?> type = null;
+		for (Object v : this.value) {
+			if (v == null || (type != null && type != v.getClass())) {
+				return null;
+			}
+			type = v.getClass();
+		}
+		return type;
+	}
+
 	public String toSql() {
 		StringBuilder sb = new StringBuilder();
 		sb.append(this.getColumnWithTableAlias());
@@ -100,4 +215,35 @@ public class ListValueCondition extends Condition {
 		sb.append(")");
 		return sb.toString();
 	}
+
+	public String toSql(List<Object> binds) {
+		if (this.value == null || this.value.isEmpty()) {
+			return "";
+		}
+		String column = this.getColumnWithTableAlias();
+		if (isArrayBind()) {
+			binds.add(getArrayValue());
+			return column + " " + getArrayOperator() + " (?)";
+		}
+		List<List<Object>> chunks = getChunks();
+		StringBuilder sb = new StringBuilder();
+		sb.append(chunks.size() > 1 ? "(" : "");
+		for (int c = 0; c < chunks.size(); c++) {
+			List<Object> chunk = chunks.get(c);
+			if (c > 0) {
+				sb.append(" ").append(getChunkJoin()).append(" ");
+			}
+			sb.append(column);
+			sb.append(" ");
+			sb.append(this.equal);
+			sb.append(" (");
+			for (int i = 0; i < chunk.size(); i++) {
+				sb.append(i > 0 ? ",?" : "?");
+			}
+			sb.append(")");
+			binds.addAll(chunk);
+		}
+		sb.append(chunks.size() > 1 ? ")" : "");
+		return sb.toString();
+	}
 }
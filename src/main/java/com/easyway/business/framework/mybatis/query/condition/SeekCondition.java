@@ -0,0 +1,144 @@
+package com.easyway.business.framework.mybatis.query.condition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.easyway.business.framework.mybatis.query.ConditionQuery;
+
+/**
+ * 键集分页（seek）条件：取排序键位于上一页最后一条记录之后的记录
+ * <p>
+ * 多列排序键按字典序展开为 (c1 &gt; v1) or (c1 = v1 and c2 &gt; v2) or ...，
+ * 降序列使用 &lt;。排序键应以唯一列（如主键）结尾，且不能为null
+ * </p>
+ *
+ * @author xl.liu
+ */
+public class SeekCondition extends Condition {
+	private final String[]  columns;
+	private final boolean[] descending;
+	private final Object[]  values;
+
+	public void addConditionToQuery(ConditionQuery imp) {
+		imp.addSeekValueCondition(this);
+	}
+
+	/**
+	 * @param columns 排序列
+	 * @param descending 对应列是否降序
+	 * @param values 上一页最后一条记录的排序键
+	 */
+	public SeekCondition(String[] columns, boolean[] descending, Object[] values) {
+		if (columns == null || columns.length == 0) {
+			throw new IllegalArgumentException("columns must not be empty");
+		}
+		if (descending == null || descending.length != columns.length
+				|| values == null || values.length != columns.length) {
+			throw new IllegalArgumentException("descending and values must match columns");
+		}
+		for (Object value : values) {
+			if (value == null) {
+				throw new IllegalArgumentException("Seek values must not be null");
+			}
+		}
+		this.columns = columns.clone();
+		this.descending = descending.clone();
+		this.values = values.clone();
+	}
+
+	public SeekCondition(String tableAlias, String[] columns, boolean[] descending, Object[] values) {
+		this(columns, descending, values);
+		this.tableAlias = tableAlias;
+	}
+
+	public String getColumn() {
+		return String.join(",", this.columns);
+	}
+
+	/**
+	 * 展开后的条件，外层以or连接，内层以and连接
+	 */
+	public List<List<SeekPart>> getTerms() {
+		List<List<SeekPart>> terms = new ArrayList<List<SeekPart>>(this.columns.length);
+		for (int i = 0; i < this.columns.length; i++) {
+			List<SeekPart> term = new ArrayList<SeekPart>(i + 1);
+			for (int j = 0; j < i; j++) {
+				term.add(new SeekPart(columnWithTableAlias(j), "=", this.values[j]));
+			}
+			term.add(new SeekPart(columnWithTableAlias(i), this.descending[i] ? "<" : ">",
+					this.values[i]));
+			terms.add(Collections.unmodifiableList(term));
+		}
+		return terms;
+	}
+
+	private String columnWithTableAlias(int index) {
+		String column = this.columns[index];
+		if ((this.tableAlias == null) || ("".equals(this.tableAlias)) || column.indexOf('.') >= 0) {
+			return column;
+		}
+		return this.tableAlias + "." + column;
+	}
+
+	public String toSql() {
+		return render(null);
+	}
+
+	public String toSql(List<Object> binds) {
+		return render(binds);
+	}
+
+	/**
+	 * binds为null时值以字面量输出
+	 */
+	private String render(List<Object> binds) {
+		StringBuilder sb = new StringBuilder("(");
+		List<List<SeekPart>> terms = getTerms();
+		for (int i = 0; i < terms.size(); i++) {
+			sb.append(i > 0 ? " or (" : "(");
+			List<SeekPart> term = terms.get(i);
+			for (int j = 0; j < term.size(); j++) {
+				SeekPart part = term.get(j);
+				sb.append(j > 0 ? " and " : "");
+				sb.append(part.getColumn()).append(" ").append(part.getOperator());
+				if (binds != null) {
+					sb.append(" ?");
+					binds.add(part.getValue());
+				} else {
+					sb.append(" '").append(part.getValue()).append("'");
+				}
+			}
+			sb.append(")");
+		}
+		sb.append(")");
+		return sb.toString();
+	}
+
+	/**
+	 * 单个比较：列 运算符 值
+	 */
+	public static class SeekPart {
+		private final String column;
+		private final String operator;
+		private final Object value;
+
+		SeekPart(String column, String operator, Object value) {
+			this.column = column;
+			this.operator = operator;
+			this.value = value;
+		}
+
+		public String getColumn() {
+			return this.column;
+		}
+
+		public String getOperator() {
+			return this.operator;
+		}
+
+		public Object getValue() {
+			return this.value;
+		}
+	}
+}
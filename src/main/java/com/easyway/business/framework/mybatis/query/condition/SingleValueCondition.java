@@ -1,5 +1,7 @@
 package com.easyway.business.framework.mybatis.query.condition;
 
+import java.util.List;
+
 import com.easyway.business.framework.constant.Constant;
 import com.easyway.business.framework.mybatis.query.ConditionQuery;
 
@@ -62,4 +64,9 @@ public class SingleValueCondition extends Condition {
 		sb.append("'");
 		return sb.toString();
 	}
+
+	public String toSql(List<Object> binds) {
+		binds.add(this.value);
+		return this.getColumnWithTableAlias() + " " + this.equal + " ?";
+	}
 }
@@ -1,6 +1,9 @@
 package com.easyway.business.framework.mybatis.util;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
@@ -11,31 +14,77 @@ import com.easyway.business.framework.mybatis.query.condition.Condition;
 
 public final class ConditionUtil {
     private static final Logger logger = LoggerFactory.getLogger(ConditionUtil.class);
+
+    // 每个类的条件取值方法只解析一次
+    private static final ClassValue<Extractor> EXTRACTORS = new ClassValue<Extractor>() {
+        @Override
+        protected Extractor computeValue(Class<?> type) {
+            return new Extractor(type);
+        }
+    };
     
 	public static List<Condition> getConditions(Object target) {
 		if (target == null) {
 			return null;
 		}
-		List<Condition> retList = new ArrayList<Condition>();
-		String methodName = null;
-		try {
-			Method[] methods = target.getClass().getMethods();
-			for (Method method : methods) {
-				methodName = method.getName();
-				Annotation[] annotations = method.getAnnotations();
-				if ((methodName.startsWith("get")) && (AnnotationConditionFactory.couldBuild(annotations))) {
-					Object value = method.invoke(target, new Object[0]);
-					for (Annotation annotation : annotations) {
-						Condition condition = AnnotationConditionFactory.buildCondition(annotation, value);
-						if (condition != null) {
-						    retList.add(condition);
-						}
+		return EXTRACTORS.get(target.getClass()).extract(target);
+	}
+
+	/**
+	 * 类的条件取值方法：带条件注解的get方法及对应的条件工厂，取值使用MethodHandle
+	 */
+	private static final class Extractor {
+		private final String[]       names;
+		private final MethodHandle[] getters;
+		private final Annotation[][] annotations;
+
+		Extractor(Class<?> type) {
+			List<String> nameList = new ArrayList<String>();
+			List<MethodHandle> getterList = new ArrayList<MethodHandle>();
+			List<Annotation[]> annotationList = new ArrayList<Annotation[]>();
+			MethodType getterType = MethodType.methodType(Object.class, Object.class);
+			for (Method method : type.getMethods()) {
+				Annotation[] methodAnnotations = method.getAnnotations();
+				if (!method.getName().startsWith("get")
+						|| !AnnotationConditionFactory.couldBuild(methodAnnotations)) {
+					continue;
+				}
+				try {
+					method.setAccessible(true);
+					getterList.add(MethodHandles.lookup().unreflect(method).asType(getterType));
+				} catch (Exception e) {
+					logger.error(e.getMessage(), e);
+					continue;
+				}
+				nameList.add(method.getName());
+				annotationList.add(methodAnnotations);
+			}
+			this.names = nameList.toArray(new String[0]);
+			this.getters = getterList.toArray(new MethodHandle[0]);
+			this.annotations = annotationList.toArray(new Annotation[0][]);
+		}
+
+		List<Condition> extract(Object target) {
+			List<Condition> retList = new ArrayList<Condition>();
+			for (int i = 0; i < getters.length; i++) {
+				Object value;
+				try {
+					value = getters[i].invokeExact(target);
+				} catch (Error e) {
+					throw e;
+				} catch (Throwable e) {
+					// invokeExact声明抛出Throwable，Error以外的异常（即get方法抛出的异常）与原先一样记录日志
+					logger.error(names[i] + ": " + e.getMessage(), e);
+					return retList;
+				}
+				for (Annotation annotation : annotations[i]) {
+					Condition condition = AnnotationConditionFactory.buildCondition(annotation, value);
+					if (condition != null) {
+						retList.add(condition);
 					}
 				}
 			}
-		} catch (Exception e) {
-            logger.error(e.getMessage(), e);
+			return retList;
 		}
-		return retList;
 	}
 }
@@ -1,5 +1,6 @@
 package com.easyway.business.framework.pojo;
 
+import java.util.Arrays;
 import com.alibaba.fastjson.annotation.JSONType;
 import com.easyway.business.framework.json.annotion.NotJsonData;
 import com.easyway.business.framework.mybatis.query.ConditionQuery;
@@ -40,12 +41,12 @@ public class Grid extends Page {
         if (ret == null) {
             return null;
         }
-        ret = ret.replaceAll("'", "");
-        ret = ret.replaceAll("\\*", "");
-        ret = ret.replaceAll("--", "");
-        ret = ret.replaceAll(" ", "");
-        ret = ret.replaceAll("\\(", "");
-        ret = ret.replaceAll("\\)", "");
+        ret = ret.replace("'", "");
+        ret = ret.replace("*", "");
+        ret = ret.replace("--", "");
+        ret = ret.replace(" ", "");
+        ret = ret.replace("(", "");
+        ret = ret.replace(")", "");
         if (ret.length() > 20) {
             ret = ret.substring(0, 20);
         }
@@ -78,10 +79,32 @@ public class Grid extends Page {
         return ret.toString();
     }
 
+    /**
+     * 键集分页按排序列、唯一键排序，唯一键与排序列同向；排序列必须为非空列
+     */
+    protected String[] keysetColumns() {
+        String name = buildSortname();
+        if ((name == null) || ("".equals(name)) || name.equals(getKeyColumn())) {
+            return new String[] { getKeyColumn() };
+        }
+        // 键集分页的排序列拼接到查询条件中
+        if (!isColumnName(name)) {
+            throw new IllegalArgumentException("Illegal sort column: " + name);
+        }
+        return new String[] { name, getKeyColumn() };
+    }
+
+    protected boolean[] keysetDescending() {
+        boolean desc = "desc".equals(buildSortorder());
+        boolean[] ret = new boolean[keysetColumns().length];
+        Arrays.fill(ret, desc);
+        return ret;
+    }
+
     public ConditionQuery buildConditionQuery() {
         ConditionQuery query = super.buildConditionQuery();
         String orderCol = buildOrderCol();
-        if (orderCol != null) {
+        if (orderCol != null && !isKeyset()) {
             query.addParam("orderCol", orderCol);
         }
         return query;
@@ -1,12 +1,21 @@
 package com.easyway.business.framework.pojo;
 
+import java.lang.reflect.Field;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 import com.alibaba.fastjson.annotation.JSONField;
 import com.easyway.business.framework.json.annotion.JsonData;
 import com.easyway.business.framework.json.annotion.NotJsonData;
 import com.easyway.business.framework.mybatis.query.ConditionQuery;
+import com.easyway.business.framework.mybatis.query.KeysetCursor;
+import com.easyway.business.framework.mybatis.query.condition.SeekCondition;
+import com.easyway.business.framework.util.ReflectUtil;
+import com.easyway.business.framework.util.StringUtil;
 
 public class Page extends QueryPojo {
+    // 拼接到SQL中的列名
+    private static final Pattern COLUMN_PATTERN = Pattern.compile("[A-Za-z0-9_.]+");
 
     // 每页条数
     private int     pageSize = 10;
@@ -18,6 +27,22 @@ public class Page extends QueryPojo {
     private int     pages;
     // 总记录数
     private int     total;
+    // 总记录数为下限（实际记录数大于total）
+    private boolean totalApproximate;
+    // 客户端已知总记录数（由total传入），不再查询记录数
+    private boolean skipCount;
+    // 只判断是否有下一页，不查询记录数
+    private boolean hasNextOnly;
+    // 是否有下一页
+    private boolean hasNext;
+    // 键集分页：按排序键定位下一页，不使用偏移量
+    private boolean keyset;
+    // 键集分页的唯一键列，作为排序的最后一列
+    private String  keyColumn = "id";
+    // 键集分页游标，为空时查询第一页
+    private String  cursor;
+    // 下一页的游标
+    private String  nextCursor;
 
     public Page() {
         
@@ -27,7 +52,15 @@ public class Page extends QueryPojo {
         this.pageSize = page.pageSize;
         this.pageNum = page.pageNum;
         this.total = page.total;
+        this.totalApproximate = page.totalApproximate;
         this.list = page.list;
+        this.skipCount = page.skipCount;
+        this.hasNextOnly = page.hasNextOnly;
+        this.hasNext = page.hasNext;
+        this.keyset = page.keyset;
+        this.keyColumn = page.keyColumn;
+        this.cursor = page.cursor;
+        this.nextCursor = page.nextCursor;
     }
 
     public int getPageSize() {
@@ -68,6 +101,116 @@ public class Page extends QueryPojo {
         this.total = total;
     }
 
+    /**
+     * 记录数超过近似计数阈值时为true，此时total为阈值，可显示为“10000+”
+     * 
+     * @return boolean
+     */
+    public boolean isTotalApproximate() {
+        return totalApproximate;
+    }
+
+    public void setTotalApproximate(boolean totalApproximate) {
+        this.totalApproximate = totalApproximate;
+    }
+
+    @NotJsonData
+    @JSONField(serialize = false)
+    public boolean isSkipCount() {
+        return skipCount;
+    }
+
+    /**
+     * 客户端已知总记录数时设置，分页查询不再查询记录数，total保留传入的值
+     * 
+     * @param skipCount
+     */
+    public void setSkipCount(boolean skipCount) {
+        this.skipCount = skipCount;
+    }
+
+    @NotJsonData
+    @JSONField(serialize = false)
+    public boolean isHasNextOnly() {
+        return hasNextOnly;
+    }
+
+    /**
+     * 只判断是否有下一页：多查询一条记录代替记录数查询，total不再计算
+     * 
+     * @param hasNextOnly
+     */
+    public void setHasNextOnly(boolean hasNextOnly) {
+        this.hasNextOnly = hasNextOnly;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    @NotJsonData
+    @JSONField(serialize = false)
+    public boolean isKeyset() {
+        return keyset;
+    }
+
+    /**
+     * 键集分页：按上一页最后一条记录的排序键（cursor）查询下一页，不查询记录数，
+     * 翻页深度不影响查询性能，但只能逐页向后翻。排序列必须为非空列，不支持可为null的列
+     * 
+     * @param keyset
+     */
+    public void setKeyset(boolean keyset) {
+        this.keyset = keyset;
+    }
+
+    @NotJsonData
+    @JSONField(serialize = false)
+    public String getKeyColumn() {
+        return keyColumn;
+    }
+
+    /**
+     * 键集分页的唯一键列，默认为id，值不能为null。列名会拼接到SQL中，只允许字母、数字、下划线和点
+     * 
+     * @param keyColumn
+     */
+    public void setKeyColumn(String keyColumn) {
+        if (!isColumnName(keyColumn)) {
+            throw new IllegalArgumentException("Illegal key column: " + keyColumn);
+        }
+        this.keyColumn = keyColumn;
+    }
+
+    /**
+     * 是否为可拼接到SQL中的列名：字母、数字、下划线和点
+     */
+    protected static boolean isColumnName(String column) {
+        return column != null && COLUMN_PATTERN.matcher(column).matches();
+    }
+
+    @NotJsonData
+    @JSONField(serialize = false)
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
     /**
      * 查询偏移量
      * 
@@ -92,8 +235,99 @@ public class Page extends QueryPojo {
 
     public ConditionQuery buildConditionQuery() {
         ConditionQuery query = super.buildConditionQuery();
-        query.addParam("pageOffset", Integer.valueOf(getPageOffset()));
-        query.addParam("pageSize", Integer.valueOf(getPageSize()));
+        if (this.keyset) {
+            addKeysetCondition(query);
+        } else {
+            query.addParam("pageOffset", Integer.valueOf(getPageOffset()));
+        }
+        // 只判断是否有下一页、键集分页时多查询一条
+        int querySize = (this.hasNextOnly || this.keyset) && this.pageSize > 0 ? this.pageSize + 1
+            : this.pageSize;
+        query.addParam("pageSize", Integer.valueOf(querySize));
         return query;
     }
+
+    private void addKeysetCondition(ConditionQuery query) {
+        String orderCol = keysetOrderCol();
+        query.addParam("pageOffset", Integer.valueOf(0));
+        query.addParam("orderCol", orderCol);
+        if (this.cursor == null || this.cursor.isEmpty()) {
+            return;
+        }
+        // 排序方式改变后的旧游标从第一页开始
+        Object[] values = KeysetCursor.decode(this.cursor, orderCol);
+        if (values != null && values.length == keysetColumns().length) {
+            query.add(new SeekCondition(keysetColumns(), keysetDescending(), values));
+        }
+    }
+
+    /**
+     * 键集分页的排序列，最后一列为唯一键
+     */
+    protected String[] keysetColumns() {
+        return new String[] { this.keyColumn };
+    }
+
+    /**
+     * 键集分页排序列对应的是否降序
+     */
+    protected boolean[] keysetDescending() {
+        return new boolean[] { false };
+    }
+
+    /**
+     * 键集分页的排序子句，同时作为游标的排序签名
+     */
+    public String keysetOrderCol() {
+        String[] columns = keysetColumns();
+        boolean[] descending = keysetDescending();
+        StringBuilder ret = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                ret.append(",");
+            }
+            ret.append(columns[i]).append(descending[i] ? " desc" : " asc");
+        }
+        return ret.toString();
+    }
+
+    /**
+     * 根据记录的排序键生成游标，列名按驼峰转为属性名（t.create_time -> createTime）
+     * 
+     * @param row 实体或Map
+     * @return String
+     * @throws IllegalArgumentException 排序键为null，键集分页不支持可为null的排序列
+     */
+    public String buildCursor(Object row) {
+        String[] columns = keysetColumns();
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = keyValue(row, columns[i]);
+            if (values[i] == null) {
+                throw new IllegalArgumentException("Keyset column " + columns[i]
+                        + " is null, keyset pagination requires non-null sort columns");
+            }
+        }
+        return KeysetCursor.encode(keysetOrderCol(), values);
+    }
+
+    private static Object keyValue(Object row, String column) {
+        String name = column.substring(column.lastIndexOf('.') + 1);
+        String property = StringUtil.toCamelCase(name);
+        if (row instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) row;
+            return map.containsKey(name) ? map.get(name) : map.get(property);
+        }
+        Field field = ReflectUtil.getClassFields(row.getClass(), true).get(property);
+        if (field == null) {
+            throw new IllegalStateException("Keyset property " + property + " not found in "
+                    + row.getClass().getName());
+        }
+        try {
+            field.setAccessible(true);
+            return field.get(row);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
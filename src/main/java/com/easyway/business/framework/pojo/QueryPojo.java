@@ -1,6 +1,10 @@
 package com.easyway.business.framework.pojo;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -17,28 +21,18 @@ public class QueryPojo {
     private Set<Condition>      appendCondition = new ConcurrentSkipListSet<>();
     private Map<String, Object> paramMap        = new ConcurrentHashMap<>();
 
-    @SuppressWarnings("all")
+    // 每个类的查询参数字段只解析一次
+    private static final ClassValue<ParamBinder> BINDERS = new ClassValue<ParamBinder>() {
+        @Override
+        protected ParamBinder computeValue(Class<?> type) {
+            return new ParamBinder(type);
+        }
+    };
+
     public ConditionQuery buildConditionQuery() {
         ConditionQuery query = newConditionQuery();
         query.addAll(toConditions());
-        try {
-            Map<String, Field> fieldMap = ReflectUtil.getClassFields(this.getClass(), true);
-            Set<Map.Entry<String, Field>> entryseSet = fieldMap.entrySet();
-            for (Map.Entry<String, Field> entry : entryseSet) {
-                Field field = entry.getValue();
-                if (!field.isAccessible()) {
-                    field.setAccessible(true);
-                }
-                try {
-                    Object value = field.get(this);
-                    if (value != null) {
-                        query.addParam(entry.getKey(), value);
-                    }
-                } catch (Exception e) {
-                }
-            }
-        } catch (Exception e) {
-        }
+        BINDERS.get(this.getClass()).bind(this, query);
         if (this.appendCondition != null 
                 && !this.appendCondition.isEmpty()) {
             query.addAll(new ArrayList<>(this.appendCondition));
@@ -67,4 +61,46 @@ public class QueryPojo {
             this.paramMap.put(key, value);
         }
     }
+
+    /**
+     * 将对象的实例字段值（非null）作为查询参数，字段取值使用MethodHandle；
+     * {@link Page}、{@link Grid}声明的分页、排序状态字段不作为查询参数，子类声明的同名字段不受影响
+     */
+    private static final class ParamBinder {
+        private final String[]       names;
+        private final MethodHandle[] getters;
+
+        ParamBinder(Class<?> type) {
+            List<String> nameList = new ArrayList<>();
+            List<MethodHandle> getterList = new ArrayList<>();
+            MethodType getterType = MethodType.methodType(Object.class, Object.class);
+            for (Map.Entry<String, Field> entry : ReflectUtil.getClassFields(type, true).entrySet()) {
+                Field field = entry.getValue();
+                if (Modifier.isStatic(field.getModifiers()) || field.getDeclaringClass() == Page.class
+                        || field.getDeclaringClass() == Grid.class) {
+                    continue;
+                }
+                try {
+                    field.setAccessible(true);
+                    getterList.add(MethodHandles.lookup().unreflectGetter(field).asType(getterType));
+                    nameList.add(entry.getKey());
+                } catch (Exception e) {
+                }
+            }
+            this.names = nameList.toArray(new String[0]);
+            this.getters = getterList.toArray(new MethodHandle[0]);
+        }
+
+        void bind(Object target, ConditionQuery query) {
+            for (int i = 0; i < getters.length; i++) {
+                try {
+                    Object value = getters[i].invokeExact(target);
+                    if (value != null) {
+                        query.addParam(names[i], value);
+                    }
+                } catch (Throwable e) {
+                }
+            }
+        }
+    }
 }
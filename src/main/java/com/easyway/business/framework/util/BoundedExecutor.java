@@ -0,0 +1,115 @@
+package com.easyway.business.framework.util;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限制并发数的线程池
+ * <p>
+ * 任务提交后立即交给底层线程池，执行前先获取许可，同时执行的任务数不超过maxConcurrency。
+ * 与虚拟线程配合使用时（{@link #virtual(String, int)}），每个任务一个虚拟线程，等待许可的任务只占用
+ * 很少的内存，适合大量阻塞的数据库调用；maxConcurrency应不大于连接池大小，避免任务在获取连接时阻塞
+ * </p>
+ * <p>
+ * 多个批量任务、查询共用同一实例时，并发数按实例整体限制
+ * </p>
+ *
+ * @author xl.liu
+ */
+public class BoundedExecutor extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final Semaphore       permits;
+    private final int             maxConcurrency;
+
+    public BoundedExecutor(ExecutorService delegate, int maxConcurrency) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate must not be null");
+        }
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        this.delegate = delegate;
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    /**
+     * 每个任务使用一个虚拟线程，最多maxConcurrency个任务同时执行
+     *
+     * @param namePrefix 虚拟线程名前缀
+     */
+    public static BoundedExecutor virtual(String namePrefix, int maxConcurrency) {
+        return new BoundedExecutor(Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name(namePrefix, 1).factory()), maxConcurrency);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        delegate.execute(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                // 关闭时等待许可的任务不再执行
+                if (command instanceof Future) {
+                    ((Future<?>) command).cancel(false);
+                }
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                command.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * 正在执行的任务数
+     */
+    public int getActiveCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    /**
+     * 等待许可的任务数（估计值）
+     */
+    public int getQueuedCount() {
+        return permits.getQueueLength();
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
@@ -1,12 +1,24 @@
 package com.easyway.business.framework.util;
 
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.AbstractQueuedSynchronizer;
 import java.util.concurrent.locks.LockSupport;
 
+import com.easyway.business.framework.mybatis.batch.LatencyHistogram;
+
 /**
  * 高性能ID锁
  * 
@@ -15,15 +27,15 @@ import java.util.concurrent.locks.LockSupport;
  * // 1. 对于极高并发场景
  * MillionIdLock<String> lock = new MillionIdLock<>(4096);
  * 
- * // 2. 批量操作优化
- * String[] resources = {"a", "b", "c"};
- * // 按段排序减少死锁
- * Arrays.sort(resources, Comparator.comparingInt(System::identityHashCode));
- * for (String res : resources) {
- *     lock.lock(res);
+ * // 2. 批量操作：按内部固定顺序一次获取，不会死锁，关闭句柄时全部释放
+ * try (IdLock.Handle handle = lock.lockAll(Arrays.asList("a", "b", "c"))) {
+ *     // 临界区
  * }
  * 
  * // 3. 监控和调优
+ * lock.enableStats(10);  // 开启统计，记录竞争最多的10个ID
+ * IdLock.Stats stats = lock.getStats();
+ * // stats.getContentions()、stats.getWaitTimes().getPercentileNanos(99)、stats.getHotIds()
  * // 使用tryLock控制超时，避免死锁
  * if (lock.tryLock(resource, 100, TimeUnit.MILLISECONDS)) {
  *     try {
@@ -32,6 +44,12 @@ import java.util.concurrent.locks.LockSupport;
  *         lock.unlock(resource);
  *     }
  * }
+ * 
+ * // 4. 按值比较ID（equals/hashCode），不同请求构造的相同String、Long也互斥，无需intern
+ * IdLock<String> orderLock = new IdLock<>(256, true);
+ * // 基本类型ID，不装箱
+ * IdLock.OfLong accountLock = new IdLock.OfLong();
+ * accountLock.lock(accountId);
  */
 @SuppressWarnings("all")
 public final class IdLock<T> {
@@ -45,27 +63,45 @@ public final class IdLock<T> {
     private static final boolean USE_BACKOFF = true;       // 使用指数退避
     private static final int BACKOFF_BASE = 100;           // 退避基数（纳秒）
     private static final int BACKOFF_MAX = 10000;          // 最大退避时间
+    private static final int POOL_SIZE = 4;                // 每段内存池大小
+    
+    // ==================== 键模式 ====================
+    private static final int KEY_IDENTITY = 0;             // 按引用比较（==）
+    private static final int KEY_EQUALITY = 1;             // 按值比较（equals/hashCode）
+    private static final int KEY_PRIMITIVE = 2;            // 基本类型，值保存在key中
+    private static final Object PRIMITIVE_ID = new Object(); // 基本类型条目的占位id
     
     // ==================== 核心数据结构 ====================
     private final Segment<T>[] segments;
     private final int segmentShift;
     private final int segmentMask;
+    private final int keyMode;
     
-    // ThreadLocal优化 - 使用自定义的快速ThreadLocal
-    private static final ThreadLocal<FastThreadLocalState> localState = 
+    // ThreadLocal优化 - 使用自定义的快速ThreadLocal，每个实例独立记录重入
+    private final ThreadLocal<FastThreadLocalState> localState = 
         new ThreadLocal<>();
     
-    // 内存池 - 减少对象创建
-    private final EntryPool entryPool;
-    
-    // 性能统计（可选）
-    private final AdaptiveSpinner[] spinners;
+    // 性能统计（可选），为null时不统计
+    private volatile Stats stats;
     
     public IdLock() {
         this(DEFAULT_CONCURRENCY);
     }
     
     public IdLock(int concurrencyLevel) {
+        this(concurrencyLevel, KEY_IDENTITY);
+    }
+    
+    /**
+     * @param valueEquality 为true时按equals/hashCode比较ID，否则按引用比较
+     */
+    public IdLock(int concurrencyLevel, boolean valueEquality) {
+        this(concurrencyLevel, valueEquality ? KEY_EQUALITY : KEY_IDENTITY);
+    }
+    
+    private IdLock(int concurrencyLevel, int keyMode) {
+        this.keyMode = keyMode;
+        
         // 找到最接近的2的幂
         int segmentsCount = 1;
         while (segmentsCount < concurrencyLevel && segmentsCount < MAX_SEGMENTS) {
@@ -78,16 +114,7 @@ public final class IdLock<T> {
         
         // 初始化段
         for (int i = 0; i < segmentsCount; i++) {
-            segments[i] = new Segment<>();
-        }
-        
-        // 初始化内存池
-        this.entryPool = new EntryPool(segmentsCount * 4);
-        
-        // 初始化自适应自旋器
-        this.spinners = new AdaptiveSpinner[segmentsCount];
-        for (int i = 0; i < segmentsCount; i++) {
-            spinners[i] = new AdaptiveSpinner();
+            segments[i] = new Segment<>(i);
         }
     }
     
@@ -97,119 +124,508 @@ public final class IdLock<T> {
      * 获取锁（阻塞）
      */
     public void lock(T id) throws InterruptedException {
+        acquire(id, keyOf(id));
+    }
+    
+    /**
+     * 尝试非阻塞获取锁
+     */
+    public boolean tryLock(T id) {
+        return tryAcquire(id, keyOf(id));
+    }
+    
+    /**
+     * 带超时的尝试获取锁
+     */
+    public boolean tryLock(T id, long timeout, TimeUnit unit) throws InterruptedException {
+        return tryAcquireNanos(id, keyOf(id), unit.toNanos(timeout));
+    }
+    
+    /**
+     * 释放锁
+     */
+    public void unlock(T id) {
+        release(id, keyOf(id));
+    }
+    
+    // ==================== 读写锁 ====================
+    // lock/tryLock/unlock为写锁（独占）；读锁共享，持有写锁时可获取读锁，持有读锁时不能获取写锁
+    
+    /**
+     * 获取读锁（阻塞），已有线程排队时不插队
+     */
+    public void readLock(T id) throws InterruptedException {
+        acquireRead(id, keyOf(id));
+    }
+    
+    public boolean tryReadLock(T id) {
+        return tryAcquireRead(id, keyOf(id));
+    }
+    
+    public boolean tryReadLock(T id, long timeout, TimeUnit unit) throws InterruptedException {
+        return tryAcquireReadNanos(id, keyOf(id), unit.toNanos(timeout));
+    }
+    
+    /**
+     * 释放读锁
+     */
+    public void unlockRead(T id) {
+        release(id, keyOf(id));
+    }
+    
+    /**
+     * 乐观读：不加锁，返回戳记，读取完成后用{@link #validate}确认期间没有写锁；写锁被持有时返回0
+     * 
+     * <pre>
+     * long stamp = lock.tryOptimisticRead(id);
+     * Product p = cache.get(id);
+     * if (!lock.validate(id, stamp)) {
+     *     lock.readLock(id);
+     *     try {
+     *         p = cache.get(id);
+     *     } finally {
+     *         lock.unlockRead(id);
+     *     }
+     * }
+     * </pre>
+     */
+    public long tryOptimisticRead(T id) {
+        return optimisticStamp(id, keyOf(id));
+    }
+    
+    /**
+     * 戳记发出后该ID没有获取过写锁时返回true，可能因条目回收等原因保守地返回false
+     */
+    public boolean validate(T id, long stamp) {
+        return validateStamp(id, keyOf(id), stamp);
+    }
+    
+    /**
+     * 获取多个ID的锁（阻塞），返回的句柄关闭时全部释放
+     * <p>
+     * 各线程按相同的顺序（段、哈希值）获取，互不死锁；中断时释放已获取的锁。
+     * 调用前已单独持有的锁不参与排序，不应与此混用
+     * </p>
+     */
+    public Handle lockAll(Collection<? extends T> ids) throws InterruptedException {
+        Object[] array = ids.toArray();
+        return acquireAll(array, keysOf(array), false, 0L);
+    }
+    
+    /**
+     * 带超时获取多个ID的锁，超时返回null，此时不持有其中任何锁
+     */
+    public Handle tryLockAll(Collection<? extends T> ids, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        Object[] array = ids.toArray();
+        return acquireAll(array, keysOf(array), true, unit.toNanos(timeout));
+    }
+    
+    /**
+     * 开启统计，已开启时重新开始计数；未开启时获取、释放锁只多一次字段读取
+     * 
+     * @param topK 记录竞争最多的ID数量
+     */
+    public void enableStats(int topK) {
+        if (topK <= 0) {
+            throw new IllegalArgumentException("topK must be positive");
+        }
+        stats = new Stats(segments.length, topK, keyMode == KEY_IDENTITY);
+    }
+    
+    public void disableStats() {
+        stats = null;
+    }
+    
+    /**
+     * 开启以来的统计，未开启时返回null
+     */
+    public Stats getStats() {
+        return stats;
+    }
+    
+    /**
+     * 各段哈希表的占用情况
+     */
+    public Occupancy occupancy() {
+        long capacity = 0;
+        long entries = 0;
+        long pinned = 0;
+        long pooled = 0;
+        long resizes = 0;
+        long reclaimed = 0;
+        int maxEntries = 0;
+        for (Segment<T> segment : segments) {
+            synchronized (segment) {
+                AtomicReferenceArray<LockEntry> tab = segment.table;
+                for (int i = 0; i < tab.length(); i++) {
+                    LockEntry entry = tab.get(i);
+                    if (entry != null && entry.refs > 0) {
+                        pinned++;
+                    }
+                }
+                capacity += tab.length();
+                entries += segment.count;
+                maxEntries = Math.max(maxEntries, segment.count);
+                pooled += segment.pool.size;
+                resizes += segment.resizes;
+                reclaimed += segment.reclaimed;
+            }
+        }
+        return new Occupancy(segments.length, capacity, entries, maxEntries, pinned, pooled,
+            resizes, reclaimed);
+    }
+    
+    // ==================== 获取与释放 ====================
+    // id与key共同确定一个锁：对象ID的key为其哈希值，基本类型ID的id为PRIMITIVE_ID、key为值本身
+    
+    private void acquire(Object id, long key) throws InterruptedException {
         Thread thread = Thread.currentThread();
         FastThreadLocalState state = getThreadLocalState();
         
         // 快速路径1：重入检查（使用本地缓存）
-        int reentrantCount = state.getReentrantCount(id);
-        if (reentrantCount > 0) {
-            state.recordLock(id, reentrantCount + 1);
+        if (state.reenter(id, key, false)) {
             return;
         }
         
-        // 获取对应的段
-        Segment<T> segment = segmentFor(id);
+        // 获取对应的段，固定条目直到释放锁
+        Segment<T> segment = segmentFor(key);
+        LockEntry entry = segment.pin(id, key);
+        Stats stats = this.stats;
         
         // 快速路径2：无竞争获取
-        LockEntry entry = segment.tryFastLock(id, thread, state);
-        if (entry != null) {
-            state.recordLock(id, 1);
-            return;
+        if (!entry.tryLock(thread)) {
+            // 慢速路径：完整获取流程
+            long start = stats != null ? System.nanoTime() : 0L;
+            try {
+                segment.lock(entry, thread);
+            } catch (InterruptedException e) {
+                entry.unpin();
+                throw e;
+            }
+            if (stats != null) {
+                stats.recordWait(segment.index, hotId(id, key), System.nanoTime() - start);
+            }
         }
-        
-        // 慢速路径：完整获取流程
-        segment.lock(id, thread, state);
-        state.recordLock(id, 1);
+        state.recordLock(id, key, entry, onAcquired(stats, segment));
     }
     
-    /**
-     * 尝试非阻塞获取锁
-     */
-    public boolean tryLock(T id) {
+    private boolean tryAcquire(Object id, long key) {
         Thread thread = Thread.currentThread();
         FastThreadLocalState state = getThreadLocalState();
         
-        int reentrantCount = state.getReentrantCount(id);
-        if (reentrantCount > 0) {
-            state.recordLock(id, reentrantCount + 1);
+        if (state.reenter(id, key, false)) {
             return true;
         }
         
-        Segment<T> segment = segmentFor(id);
-        LockEntry entry = segment.tryFastLock(id, thread, state);
-        
-        if (entry != null) {
-            state.recordLock(id, 1);
+        Segment<T> segment = segmentFor(key);
+        LockEntry entry = segment.pin(id, key);
+        Stats stats = this.stats;
+        if (entry.tryLock(thread)) {
+            state.recordLock(id, key, entry, onAcquired(stats, segment));
             return true;
         }
         
+        entry.unpin();
+        if (stats != null) {
+            stats.recordContention(segment.index, hotId(id, key));
+        }
         return false;
     }
     
-    /**
-     * 带超时的尝试获取锁
-     */
-    public boolean tryLock(T id, long timeout, TimeUnit unit) throws InterruptedException {
-        long nanosTimeout = unit.toNanos(timeout);
+    private boolean tryAcquireNanos(Object id, long key, long nanosTimeout)
+            throws InterruptedException {
         Thread thread = Thread.currentThread();
         FastThreadLocalState state = getThreadLocalState();
         
-        int reentrantCount = state.getReentrantCount(id);
-        if (reentrantCount > 0) {
-            state.recordLock(id, reentrantCount + 1);
+        if (state.reenter(id, key, false)) {
             return true;
         }
         
-        Segment<T> segment = segmentFor(id);
+        Segment<T> segment = segmentFor(key);
+        LockEntry entry = segment.pin(id, key);
+        Stats stats = this.stats;
+        
+        // 快速尝试，失败后带超时的尝试
+        if (!entry.tryLock(thread)) {
+            long start = stats != null ? System.nanoTime() : 0L;
+            boolean locked = false;
+            try {
+                locked = segment.tryLock(entry, thread, nanosTimeout);
+            } finally {
+                if (!locked) {
+                    entry.unpin();
+                }
+            }
+            if (stats != null) {
+                recordTimedWait(stats, segment, hotId(id, key), locked, start);
+            }
+            if (!locked) {
+                return false;
+            }
+        }
+        
+        state.recordLock(id, key, entry, onAcquired(stats, segment));
+        return true;
+    }
+    
+    private void acquireRead(Object id, long key) throws InterruptedException {
+        FastThreadLocalState state = getThreadLocalState();
+        if (state.reenter(id, key, true)) {
+            return;
+        }
         
-        // 快速尝试
-        LockEntry entry = segment.tryFastLock(id, thread, state);
-        if (entry != null) {
-            state.recordLock(id, 1);
+        Segment<T> segment = segmentFor(key);
+        LockEntry entry = segment.pin(id, key);
+        Stats stats = this.stats;
+        if (!entry.tryLockShared()) {
+            long start = 0L;
+            if (stats != null) {
+                start = System.nanoTime();
+                stats.recordPark(segment.index);
+            }
+            try {
+                entry.lockShared();
+            } catch (InterruptedException e) {
+                entry.unpin();
+                throw e;
+            }
+            if (stats != null) {
+                stats.recordWait(segment.index, hotId(id, key), System.nanoTime() - start);
+            }
+        }
+        state.recordLock(id, key, entry, onAcquired(stats, segment));
+    }
+    
+    private boolean tryAcquireRead(Object id, long key) {
+        FastThreadLocalState state = getThreadLocalState();
+        if (state.reenter(id, key, true)) {
             return true;
         }
         
-        // 带超时的尝试
-        if (segment.tryLock(id, thread, state, nanosTimeout)) {
-            state.recordLock(id, 1);
+        Segment<T> segment = segmentFor(key);
+        LockEntry entry = segment.pin(id, key);
+        Stats stats = this.stats;
+        if (entry.tryLockShared()) {
+            state.recordLock(id, key, entry, onAcquired(stats, segment));
             return true;
         }
         
+        entry.unpin();
+        if (stats != null) {
+            stats.recordContention(segment.index, hotId(id, key));
+        }
         return false;
     }
     
-    /**
-     * 释放锁
-     */
-    public void unlock(T id) {
-        Thread thread = Thread.currentThread();
+    private boolean tryAcquireReadNanos(Object id, long key, long nanosTimeout)
+            throws InterruptedException {
         FastThreadLocalState state = getThreadLocalState();
+        if (state.reenter(id, key, true)) {
+            return true;
+        }
+        
+        Segment<T> segment = segmentFor(key);
+        LockEntry entry = segment.pin(id, key);
+        Stats stats = this.stats;
+        if (!entry.tryLockShared()) {
+            long start = 0L;
+            if (stats != null) {
+                start = System.nanoTime();
+                stats.recordPark(segment.index);
+            }
+            boolean locked = false;
+            try {
+                locked = entry.tryLockShared(nanosTimeout);
+            } finally {
+                if (!locked) {
+                    entry.unpin();
+                }
+            }
+            if (stats != null) {
+                recordTimedWait(stats, segment, hotId(id, key), locked, start);
+            }
+            if (!locked) {
+                return false;
+            }
+        }
         
-        int newCount = state.recordUnlock(id);
+        state.recordLock(id, key, entry, onAcquired(stats, segment));
+        return true;
+    }
+    
+    private long optimisticStamp(Object id, long key) {
+        return segmentFor(key).stamp(id, key);
+    }
+    
+    private boolean validateStamp(Object id, long key, long stamp) {
+        // 之前的读取不能重排到校验之后
+        VarHandle.acquireFence();
+        return stamp != 0L && segmentFor(key).validate(id, key, stamp);
+    }
+    
+    private void release(Object id, long key) {
+        FastThreadLocalState state = getThreadLocalState();
+        LockEntry entry = state.recordUnlock(id, key);
         
         // 如果还有重入计数，不真正释放物理锁
-        if (newCount > 0) {
+        if (entry == null) {
             return;
         }
         
-        // 完全释放物理锁
-        Segment<T> segment = segmentFor(id);
-        segment.unlock(id, thread);
+        // 完全释放物理锁，解除固定后条目可被回收
+        entry.unlock(Thread.currentThread());
+        entry.unpin();
+        
+        Stats stats = this.stats;
+        if (stats != null && state.releasedSince != 0L) {
+            stats.recordHold(System.nanoTime() - state.releasedSince);
+        }
+    }
+    
+    // ==================== 统计辅助方法 ====================
+    
+    // 统计开启时记录获取次数并返回持有开始时间，否则返回0
+    private long onAcquired(Stats stats, Segment<T> segment) {
+        if (stats == null) {
+            return 0L;
+        }
+        stats.recordAcquire(segment.index);
+        return System.nanoTime();
+    }
+    
+    private void recordTimedWait(Stats stats, Segment<T> segment, Object hotId,
+            boolean locked, long start) {
+        if (locked) {
+            stats.recordWait(segment.index, hotId, System.nanoTime() - start);
+        } else {
+            stats.recordTimeout(segment.index, hotId);
+        }
+    }
+    
+    // 热点统计中的ID，基本类型ID以Long表示
+    private static Object hotId(Object id, long key) {
+        return id == PRIMITIVE_ID ? Long.valueOf(key) : id;
+    }
+    
+    // ==================== 批量获取 ====================
+    
+    // 按哈希值（高位即段索引）、key排序后依次获取。key相同的不同ID（哈希冲突）为一组，
+    // 先阻塞获取其中一个，其余非阻塞获取，失败则释放本组并先等待失败的ID
+    private Handle acquireAll(Object[] ids, long[] keys, boolean timed, long nanosTimeout)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + nanosTimeout;
+        Integer[] order = new Integer[ids.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int c = Integer.compareUnsigned(spread(keys[a]), spread(keys[b]));
+            return c != 0 ? c : Long.compare(keys[a], keys[b]);
+        });
+        
+        Handle handle = new Handle(this, ids.length);
+        boolean acquired = false;
+        try {
+            int from = 0;
+            while (from < order.length) {
+                int to = from + 1;
+                while (to < order.length && keys[order[to]] == keys[order[from]]) {
+                    to++;
+                }
+                if (!acquireGroup(handle, ids, keys, order, from, to, timed, deadline)) {
+                    return null;
+                }
+                from = to;
+            }
+            acquired = true;
+            return handle;
+        } finally {
+            if (!acquired) {
+                handle.releaseTo(0);
+            }
+        }
+    }
+    
+    private boolean acquireGroup(Handle handle, Object[] ids, long[] keys, Integer[] order,
+            int from, int to, boolean timed, long deadline) throws InterruptedException {
+        int start = handle.size;
+        int first = from;
+        while (true) {
+            int index = order[first];
+            if (timed) {
+                if (!tryAcquireNanos(ids[index], keys[index], deadline - System.nanoTime())) {
+                    return false;
+                }
+            } else {
+                acquire(ids[index], keys[index]);
+            }
+            handle.add(ids[index], keys[index]);
+            
+            int failed = -1;
+            for (int i = from; i < to && failed < 0; i++) {
+                index = order[i];
+                if (i == first) {
+                    continue;
+                }
+                if (tryAcquire(ids[index], keys[index])) {
+                    handle.add(ids[index], keys[index]);
+                } else {
+                    failed = i;
+                }
+            }
+            if (failed < 0) {
+                return true;
+            }
+            handle.releaseTo(start);
+            first = failed;
+        }
+    }
+    
+    private long[] keysOf(Object[] ids) {
+        long[] keys = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            keys[i] = keyOf(ids[i]);
+        }
+        return keys;
+    }
+    
+    private static Object[] primitiveIds(int length) {
+        Object[] ids = new Object[length];
+        Arrays.fill(ids, PRIMITIVE_ID);
+        return ids;
     }
     
     // ==================== 内部辅助方法 ====================
     
-    private Segment<T> segmentFor(T id) {
-        // 使用身份哈希和段掩码计算段索引
-        int hash = System.identityHashCode(id);
-        int index = (hash >>> segmentShift) & segmentMask;
+    private long keyOf(Object id) {
+        if (keyMode == KEY_EQUALITY) {
+            return id == null ? 0 : id.hashCode();
+        }
+        return System.identityHashCode(id);
+    }
+    
+    // 条目是否属于该ID：先比较key，对象ID再按引用或equals比较
+    private boolean matches(LockEntry entry, Object id, long key) {
+        return entry.key == key && (entry.id == id
+            || (keyMode == KEY_EQUALITY && id != null && id.equals(entry.id)));
+    }
+    
+    // 打散哈希：高位用于选段，低位用于段内槽位
+    private static int spread(long key) {
+        int h = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+    
+    private Segment<T> segmentFor(long key) {
+        int index = (spread(key) >>> segmentShift) & segmentMask;
         return segments[index];
     }
     
     private FastThreadLocalState getThreadLocalState() {
         FastThreadLocalState state = localState.get();
         if (state == null) {
-            state = new FastThreadLocalState();
+            state = new FastThreadLocalState(keyMode == KEY_EQUALITY);
             localState.set(state);
         }
         return state;
@@ -217,104 +633,71 @@ public final class IdLock<T> {
     
     // ==================== 段实现 ====================
     
+    // 开放寻址哈希表：查找无锁，插入和重建在段锁内进行。
+    // 条目只在重建时移出：未被固定的条目标记为DEAD后放回内存池，其余复制到按数量重新分配容量的新表
     private final class Segment<T> {
-        // 使用固定大小的开放寻址哈希表
-        private static final int TABLE_SIZE = 256;
-        private final AtomicReference<LockEntry>[] table;
+        private static final int INITIAL_TABLE_SIZE = 16;
+        private final int index;
+        private volatile AtomicReferenceArray<LockEntry> table;
+        private final EntryPool pool;
         private final AdaptiveSpinner spinner;
         
-        Segment() {
-            table = new AtomicReference[TABLE_SIZE];
-            for (int i = 0; i < TABLE_SIZE; i++) {
-                table[i] = new AtomicReference<>();
-            }
+        // 以下字段由段锁保护
+        private int count;                 // 表中条目数
+        
+        // 新条目的起始版本号，回收条目时提高到其版本号之上
+        private volatile long baseVersion = 2;
+        private long resizes;              // 容量变化次数
+        private long reclaimed;            // 回收的条目数
+        
+        Segment(int index) {
+            this.index = index;
+            table = new AtomicReferenceArray<>(INITIAL_TABLE_SIZE);
+            pool = new EntryPool(POOL_SIZE);
             spinner = new AdaptiveSpinner();
         }
         
-        // 快速尝试获取锁（无等待）
-        LockEntry tryFastLock(T id, Thread thread, FastThreadLocalState state) {
-            int index = indexFor(id);
-            AtomicReference<LockEntry> slot = table[index];
-            
-            // 读取-修改-更新循环
-            while (true) {
-                LockEntry entry = slot.get();
-                
-                // 槽位为空
-                if (entry == null) {
-                    LockEntry newEntry = entryPool.acquire(id);
-                    if (slot.compareAndSet(null, newEntry)) {
-                        if (newEntry.tryLock(thread)) {
-                            return newEntry;
-                        }
-                        // CAS成功但获取锁失败（不应该发生）
-                        slot.set(null);
-                        entryPool.release(newEntry);
-                        return null;
-                    }
-                    // CAS失败，重试
-                    continue;
-                }
-                
-                // 检查ID是否匹配
-                if (entry.id == id) {
-                    if (entry.tryLock(thread)) {
-                        return entry;
-                    }
-                    return null;
-                }
-                
-                // 哈希冲突，线性探测
-                for (int i = 1; i < TABLE_SIZE; i++) {
-                    int probeIndex = (index + i) & (TABLE_SIZE - 1);
-                    slot = table[probeIndex];
-                    entry = slot.get();
-                    
-                    if (entry == null) {
-                        continue;
-                    }
-                    
-                    if (entry.id == id) {
-                        if (entry.tryLock(thread)) {
-                            return entry;
-                        }
-                        return null;
-                    }
-                }
-                
-                // 未找到，创建新条目（使用下一个空槽）
-                for (int i = 0; i < TABLE_SIZE; i++) {
-                    int probeIndex = (index + i) & (TABLE_SIZE - 1);
-                    slot = table[probeIndex];
-                    entry = slot.get();
-                    
-                    if (entry == null) {
-                        LockEntry newEntry = entryPool.acquire(id);
-                        if (slot.compareAndSet(null, newEntry)) {
-                            if (newEntry.tryLock(thread)) {
-                                return newEntry;
-                            }
-                            slot.set(null);
-                            entryPool.release(newEntry);
-                        }
-                        break;
-                    }
+        // 查找或创建条目并固定，固定的条目不会被回收
+        LockEntry pin(Object id, long key) {
+            // 快速路径：无锁查找
+            LockEntry entry = find(table, id, key);
+            if (entry != null && entry.pin()) {
+                // 查找与固定之间条目可能已被回收并分配给其它ID
+                if (matches(entry, id, key)) {
+                    return entry;
                 }
-                
-                return null;
+                entry.unpin();
             }
+            return pinOrCreate(id, key);
         }
         
-        // 完整获取锁（可能阻塞）
-        void lock(T id, Thread thread, FastThreadLocalState state) throws InterruptedException {
-            LockEntry entry = getOrCreateEntry(id);
+        private synchronized LockEntry pinOrCreate(Object id, long key) {
+            AtomicReferenceArray<LockEntry> tab = table;
+            LockEntry entry = find(tab, id, key);
+            // 段锁内表中的条目都未被回收
+            if (entry != null && entry.pin()) {
+                return entry;
+            }
             
+            // 负载超过3/4时回收并重建
+            if ((count + 1) * 4 > tab.length() * 3) {
+                tab = rebuild(tab);
+            }
+            entry = pool.acquire(id, key, baseVersion);
+            insert(tab, entry);
+            count++;
+            return entry;
+        }
+        
+        // 完整获取锁（可能阻塞）
+        void lock(LockEntry entry, Thread thread) throws InterruptedException {
             // 自适应自旋
             int spinLimit = spinner.getSpinLimit();
             int spins = 0;
             
             while (spins < spinLimit) {
                 if (entry.tryLock(thread)) {
+                    recordSpinAcquire();
                     return;
                 }
                 if (Thread.interrupted()) {
@@ -325,7 +708,7 @@ public final class IdLock<T> {
                 // 指数退避
                 if (USE_BACKOFF && spins > INITIAL_SPIN_LIMIT) {
                     int backoff = Math.min(
-                        BACKOFF_BASE << (spins - INITIAL_SPIN_LIMIT),
+                        BACKOFF_BASE << Math.min(spins - INITIAL_SPIN_LIMIT, 7), // 避免移位溢出
                         BACKOFF_MAX
                     );
                     Thread.sleep(0, backoff);
@@ -336,6 +719,7 @@ public final class IdLock<T> {
             
             // 进入等待队列
             spinner.recordContention(); // 记录竞争
+            recordPark();
             
             try {
                 entry.lock(thread);
@@ -346,18 +730,16 @@ public final class IdLock<T> {
         }
         
         // 带超时的尝试获取锁
-        boolean tryLock(T id, Thread thread, FastThreadLocalState state, long nanosTimeout) 
+        boolean tryLock(LockEntry entry, Thread thread, long nanosTimeout)
                 throws InterruptedException {
             
-            LockEntry entry = getOrCreateEntry(id);
-            long deadline = System.nanoTime() + nanosTimeout;
-            
             // 自适应自旋
             int spinLimit = spinner.getSpinLimit();
             int spins = 0;
             
             while (spins < spinLimit && nanosTimeout > 0) {
                 if (entry.tryLock(thread)) {
+                    recordSpinAcquire();
                     return true;
                 }
                 
@@ -381,6 +763,7 @@ public final class IdLock<T> {
             
             // 带超时的完整获取
             spinner.recordContention();
+            recordPark();
             
             try {
                 return entry.tryLock(thread, nanosTimeout);
@@ -390,171 +773,162 @@ public final class IdLock<T> {
             }
         }
         
-        // 释放锁
-        void unlock(T id, Thread thread) {
-            int index = indexFor(id);
-            AtomicReference<LockEntry> slot = table[index];
-            
-            // 查找对应的条目
-            LockEntry entry = slot.get();
-            if (entry != null && entry.id == id) {
-                entry.unlock(thread);
-                tryCleanupEntry(entry);
-                return;
-            }
-            
-            // 线性探测查找
-            for (int i = 1; i < TABLE_SIZE; i++) {
-                int probeIndex = (index + i) & (TABLE_SIZE - 1);
-                slot = table[probeIndex];
-                entry = slot.get();
-                
-                if (entry != null && entry.id == id) {
-                    entry.unlock(thread);
-                    tryCleanupEntry(entry);
-                    return;
-                }
+        private void recordSpinAcquire() {
+            Stats s = stats;
+            if (s != null) {
+                s.recordSpinAcquire(index);
             }
         }
         
-        // 获取或创建条目
-        private LockEntry getOrCreateEntry(T id) {
-            int index = indexFor(id);
-            AtomicReference<LockEntry> slot = table[index];
-            
-            while (true) {
-                LockEntry entry = slot.get();
-                
-                if (entry == null) {
-                    LockEntry newEntry = entryPool.acquire(id);
-                    if (slot.compareAndSet(null, newEntry)) {
-                        return newEntry;
-                    }
-                    // CAS失败，释放并重试
-                    entryPool.release(newEntry);
-                    continue;
-                }
-                
-                if (entry.id == id) {
-                    return entry;
-                }
-                
-                // 哈希冲突，查找其他槽位
-                for (int i = 1; i < TABLE_SIZE; i++) {
-                    int probeIndex = (index + i) & (TABLE_SIZE - 1);
-                    slot = table[probeIndex];
-                    entry = slot.get();
-                    
-                    if (entry != null && entry.id == id) {
-                        return entry;
-                    }
-                    
-                    if (entry == null) {
-                        LockEntry newEntry = entryPool.acquire(id);
-                        if (slot.compareAndSet(null, newEntry)) {
-                            return newEntry;
-                        }
-                        entryPool.release(newEntry);
-                    }
-                }
-                
-                // 哈希表满，替换第一个条目（简化处理）
-                slot = table[index];
-                entry = slot.get();
-                if (entry.isIdle()) {
-                    LockEntry newEntry = entryPool.acquire(id);
-                    if (slot.compareAndSet(entry, newEntry)) {
-                        entryPool.release(entry);
-                        return newEntry;
-                    }
-                    entryPool.release(newEntry);
-                }
+        private void recordPark() {
+            Stats s = stats;
+            if (s != null) {
+                s.recordPark(index);
             }
         }
         
-        // 尝试清理空闲条目
-        private void tryCleanupEntry(LockEntry entry) {
-            if (entry.isIdle() && entry.idleTime() > 1000000000L) { // 空闲超过1秒
-                // 查找并清理
-                for (int i = 0; i < TABLE_SIZE; i++) {
-                    AtomicReference<LockEntry> slot = table[i];
-                    LockEntry current = slot.get();
-                    if (current == entry) {
-                        if (slot.compareAndSet(entry, null)) {
-                            entryPool.release(entry);
-                        }
-                        break;
-                    }
-                }
+        // 乐观读戳记：先读基准版本号再查找，条目不存在时使用基准版本号。
+        // 之后创建的条目版本号不小于该值，写锁获取后必然大于该值
+        long stamp(Object id, long key) {
+            long base = baseVersion;
+            LockEntry entry = find(table, id, key);
+            if (entry == null) {
+                return base;
             }
+            long version = entry.version;
+            // 读取版本号后确认条目未被回收重用
+            return (version & 1) == 0 && matches(entry, id, key) ? version : 0L;
         }
         
-        // 哈希函数
-        private static int indexFor(Object id) {
-            int hash = System.identityHashCode(id);
-            return (hash ^ (hash >>> 16)) & (TABLE_SIZE - 1);
+        // 先查找再读基准版本号：条目被回收时基准版本号在移出哈希表之前已提高
+        boolean validate(Object id, long key, long stamp) {
+            LockEntry entry = find(table, id, key);
+            if (entry == null) {
+                return baseVersion == stamp;
+            }
+            return entry.version == stamp && matches(entry, id, key);
+        }
+        
+        // 线性探测查找，表中总有空槽
+        private LockEntry find(AtomicReferenceArray<LockEntry> tab, Object id, long key) {
+            int mask = tab.length() - 1;
+            int index = spread(key) & mask;
+            LockEntry entry;
+            while ((entry = tab.get(index)) != null) {
+                if (matches(entry, id, key)) {
+                    return entry;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+        
+        private void insert(AtomicReferenceArray<LockEntry> tab, LockEntry entry) {
+            int mask = tab.length() - 1;
+            int index = spread(entry.key) & mask;
+            while (tab.get(index) != null) {
+                index = (index + 1) & mask;
+            }
+            tab.set(index, entry);
+        }
+        
+        // 回收未被固定的条目，剩余条目放入负载不超过1/2的新表，容量可增可减。
+        // 旧表上的无锁查找可能读到已回收的条目，固定失败或ID不匹配后进入段锁重新查找
+        private AtomicReferenceArray<LockEntry> rebuild(AtomicReferenceArray<LockEntry> tab) {
+            LockEntry[] live = new LockEntry[count];
+            int size = 0;
+            for (int i = 0; i < tab.length(); i++) {
+                LockEntry entry = tab.get(i);
+                if (entry == null) {
+                    continue;
+                }
+                if (entry.kill()) {
+                    baseVersion = Math.max(baseVersion, entry.version + 2);
+                    pool.release(entry);
+                    reclaimed++;
+                } else {
+                    live[size++] = entry;
+                }
+            }
+            
+            int capacity = INITIAL_TABLE_SIZE;
+            while (capacity < (size + 1) * 2) {
+                capacity <<= 1;
+            }
+            AtomicReferenceArray<LockEntry> newTab = new AtomicReferenceArray<>(capacity);
+            for (int i = 0; i < size; i++) {
+                insert(newTab, live[i]);
+            }
+            if (capacity != tab.length()) {
+                resizes++;
+            }
+            count = size;
+            table = newTab;
+            return newTab;
         }
     }
     
     // ==================== 锁条目 ====================
     
-    private static final class LockEntry {
+    // 继承AQS，由AQS维护等待队列，避免单独的同步器对象
+    private static final class LockEntry extends AbstractQueuedSynchronizer {
+        private static final long serialVersionUID = 1L;
+        
         // 使用字段更新器避免对象头开销
-        private static final AtomicIntegerFieldUpdater<LockEntry> STATE_UPDATER =
-            AtomicIntegerFieldUpdater.newUpdater(LockEntry.class, "state");
-        private static final AtomicReferenceFieldUpdater<LockEntry, Thread> OWNER_UPDATER =
-            AtomicReferenceFieldUpdater.newUpdater(LockEntry.class, Thread.class, "owner");
-        private static final AtomicReferenceFieldUpdater<LockEntry, WaitNode> WAITERS_UPDATER =
-            AtomicReferenceFieldUpdater.newUpdater(LockEntry.class, WaitNode.class, "waiters");
-        
-        // 状态常量
+        private static final AtomicIntegerFieldUpdater<LockEntry> REFS_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(LockEntry.class, "refs");
+        private static final AtomicLongFieldUpdater<LockEntry> VERSION_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(LockEntry.class, "version");
+        
+        // 状态常量，大于0时为读锁数量
         private static final int FREE = 0;
-        private static final int LOCKED = 1;
-        private static final int CONTENDED = 2;
+        private static final int LOCKED = -1;        // 写锁
+        private static final int DEAD = -1;          // 已回收，不能再固定
         
-        // 字段声明（必须volatile）
-        private Object id;
-        private volatile int state = FREE;
-        private volatile Thread owner;
+        // 字段声明（必须volatile），AQS可序列化，条目不参与序列化
+        private transient Object id;
+        private long key;
         private volatile int holdCount = 0;
-        private volatile WaitNode waiters;
-        private volatile long lastUsed;
+        private volatile int refs = DEAD;            // 固定数：持有及等待的线程数
+        private volatile long version;               // 写锁获取、释放时各加1，奇数表示写锁被持有
         
-        LockEntry(Object id) {
-            this.id = id;
-            this.lastUsed = System.nanoTime();
+        // 固定条目，已回收时返回false
+        boolean pin() {
+            while (true) {
+                int current = refs;
+                if (current < 0) {
+                    return false;
+                }
+                if (REFS_UPDATER.compareAndSet(this, current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+        
+        void unpin() {
+            REFS_UPDATER.decrementAndGet(this);
+        }
+        
+        // 未被固定时标记为已回收
+        boolean kill() {
+            return REFS_UPDATER.compareAndSet(this, 0, DEAD);
         }
         
         // 快速尝试获取锁
         boolean tryLock(Thread thread) {
             // 重入检查
-            if (owner == thread) {
+            if (getExclusiveOwnerThread() == thread) {
                 holdCount++;
-                lastUsed = System.nanoTime();
                 return true;
             }
             
             // CAS获取锁
-            if (STATE_UPDATER.compareAndSet(this, FREE, LOCKED)) {
-                OWNER_UPDATER.set(this, thread);
-                holdCount = 1;
-                lastUsed = System.nanoTime();
-                return true;
-            }
-            
-            return false;
+            return tryAcquire(LOCKED);
         }
         
         // 完整获取锁（阻塞）
         void lock(Thread thread) throws InterruptedException {
-            // 快速路径：重入
-            if (owner == thread) {
-                holdCount++;
-                lastUsed = System.nanoTime();
-                return;
-            }
-            
-            // 自旋尝试
+            // 自旋尝试（含重入）
             for (int i = 0; i < INITIAL_SPIN_LIMIT; i++) {
                 if (tryLock(thread)) {
                     return;
@@ -565,242 +939,785 @@ public final class IdLock<T> {
                 Thread.onSpinWait();
             }
             
-            // 进入等待队列
-            WaitNode node = new WaitNode(thread);
-            WaitNode oldHead;
-            
-            do {
-                oldHead = waiters;
-                node.next = oldHead;
-            } while (!WAITERS_UPDATER.compareAndSet(this, oldHead, node));
-            
-            try {
-                // 再次尝试
-                for (int i = 0; i < INITIAL_SPIN_LIMIT / 2; i++) {
-                    if (tryLock(thread)) {
-                        return;
-                    }
-                    if (Thread.interrupted()) {
-                        throw new InterruptedException();
-                    }
-                    LockSupport.parkNanos(PARK_TIMEOUT_NS);
-                }
-                
-                // 阻塞等待
-                while (!tryLock(thread)) {
-                    LockSupport.park(this);
-                    if (Thread.interrupted()) {
-                        throw new InterruptedException();
-                    }
-                }
-            } finally {
-                // 从队列中移除
-                removeFromQueue(node);
-            }
+            // 进入等待队列，释放时唤醒
+            acquireInterruptibly(LOCKED);
         }
         
         // 带超时的尝试
         boolean tryLock(Thread thread, long nanos) throws InterruptedException {
-            if (owner == thread) {
-                holdCount++;
-                lastUsed = System.nanoTime();
-                return true;
-            }
-            
-            long deadline = System.nanoTime() + nanos;
-            
-            // 快速尝试
             if (tryLock(thread)) {
                 return true;
             }
-            
-            // 进入等待队列
-            WaitNode node = new WaitNode(thread);
-            WaitNode oldHead;
-            
-            do {
-                oldHead = waiters;
-                node.next = oldHead;
-            } while (!WAITERS_UPDATER.compareAndSet(this, oldHead, node));
-            
-            try {
-                while (nanos > 0) {
-                    if (tryLock(thread)) {
-                        return true;
-                    }
-                    
-                    if (Thread.interrupted()) {
-                        throw new InterruptedException();
-                    }
-                    
-                    long sleepTime = Math.min(nanos, 1000000L); // 最多1ms
-                    LockSupport.parkNanos(sleepTime);
-                    nanos = deadline - System.nanoTime();
-                }
-                
-                return false;
-            } finally {
-                removeFromQueue(node);
+            return nanos > 0 && tryAcquireNanos(LOCKED, nanos);
+        }
+        
+        // 快速尝试获取读锁
+        boolean tryLockShared() {
+            return tryAcquireShared(1) >= 0;
+        }
+        
+        // 获取读锁（阻塞）
+        void lockShared() throws InterruptedException {
+            if (!tryLockShared()) {
+                acquireSharedInterruptibly(1);
             }
         }
         
-        // 释放锁
+        // 带超时获取读锁
+        boolean tryLockShared(long nanos) throws InterruptedException {
+            return tryLockShared() || (nanos > 0 && tryAcquireSharedNanos(1, nanos));
+        }
+        
+        // 释放锁，当前线程不是写锁持有者时释放读锁
         void unlock(Thread thread) {
-            if (owner != thread) {
-                throw new IllegalMonitorStateException();
+            if (getExclusiveOwnerThread() != thread) {
+                releaseShared(1);
+                return;
             }
             
             if (--holdCount == 0) {
-                OWNER_UPDATER.set(this, null);
-                STATE_UPDATER.set(this, FREE);
-                lastUsed = System.nanoTime();
-                
-                // 唤醒等待者
-                WaitNode head = waiters;
-                if (head != null) {
-                    WaitNode next = head.next;
-                    if (WAITERS_UPDATER.compareAndSet(this, head, next)) {
-                        LockSupport.unpark(head.thread);
-                    }
-                }
+                // 释放并唤醒等待者
+                release(LOCKED);
             }
         }
         
-        // 从队列中移除节点
-        private void removeFromQueue(WaitNode node) {
-            WaitNode head = waiters;
-            if (head == node) {
-                WaitNode next = node.next;
-                WAITERS_UPDATER.compareAndSet(this, head, next);
+        boolean ownedBy(Thread thread) {
+            return getExclusiveOwnerThread() == thread;
+        }
+        
+        @Override
+        protected boolean tryAcquire(int arg) {
+            if (compareAndSetState(FREE, LOCKED)) {
+                setExclusiveOwnerThread(Thread.currentThread());
+                holdCount = 1;
+                // 版本号变为奇数后才修改数据，乐观读据此失效
+                VERSION_UPDATER.incrementAndGet(this);
+                return true;
             }
+            return false;
         }
         
-        // 检查是否空闲
-        boolean isIdle() {
-            return state == FREE && waiters == null;
+        @Override
+        protected boolean tryRelease(int arg) {
+            setExclusiveOwnerThread(null);
+            VERSION_UPDATER.incrementAndGet(this);
+            setState(FREE);
+            return true;
         }
         
-        // 空闲时间（纳秒）
-        long idleTime() {
-            return System.nanoTime() - lastUsed;
+        @Override
+        protected int tryAcquireShared(int arg) {
+            while (true) {
+                int current = getState();
+                // 写锁被持有或已有线程排队时不插队，避免写锁饥饿
+                if (current < 0 || hasQueuedPredecessors()) {
+                    return -1;
+                }
+                if (compareAndSetState(current, current + 1)) {
+                    return 1;
+                }
+            }
         }
         
-        // 等待节点
-        private static final class WaitNode {
-            final Thread thread;
-            volatile WaitNode next;
-            
-            WaitNode(Thread thread) {
-                this.thread = thread;
+        @Override
+        protected boolean tryReleaseShared(int arg) {
+            while (true) {
+                int current = getState();
+                if (current <= 0) {
+                    throw new IllegalMonitorStateException();
+                }
+                if (compareAndSetState(current, current - 1)) {
+                    return current == 1;
+                }
             }
         }
+        
+        // 分配给新ID并由调用方固定，最后写入refs以发布id和key。
+        // 版本号不小于段的基准版本号，此前发出的戳记不会在新条目上通过校验
+        void reset(Object id, long key, long baseVersion) {
+            this.id = id;
+            this.key = key;
+            setExclusiveOwnerThread(null);
+            setState(FREE);
+            holdCount = 0;
+            version = Math.max(version, baseVersion);
+            refs = 1;
+        }
     }
     
     // ==================== ThreadLocal状态 ====================
     
     private static final class FastThreadLocalState {
-        // 使用线性探测的小型哈希表
-        private static final int CACHE_SIZE = 8;
-        private final Object[] keys = new Object[CACHE_SIZE];
-        private final int[] values = new int[CACHE_SIZE];
-        
-        // 记录锁获取
-        void recordLock(Object key, int count) {
-            // 线性探测
-            int start = hash(key);
-            for (int i = 0; i < CACHE_SIZE; i++) {
-                int index = (start + i) & (CACHE_SIZE - 1);
-                
-                if (keys[index] == key) {
-                    values[index] = count;
-                    return;
-                }
-                
-                if (keys[index] == null) {
-                    keys[index] = key;
-                    values[index] = count;
-                    return;
-                }
+        // 使用线性探测的小型哈希表，持有的锁较多时扩容，计数为0的槽位为空
+        private static final int INITIAL_CAPACITY = 8;
+        private final boolean equality;
+        private Object[] ids = new Object[INITIAL_CAPACITY];
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private int[] values = new int[INITIAL_CAPACITY];
+        private LockEntry[] entries = new LockEntry[INITIAL_CAPACITY];
+        private long[] since = new long[INITIAL_CAPACITY];      // 持有开始时间，未统计时为0
+        private int size;
+        
+        // recordUnlock返回条目时其持有开始时间
+        long releasedSince;
+        
+        FastThreadLocalState(boolean equality) {
+            this.equality = equality;
+        }
+        
+        // 已持有时增加重入计数；持有写锁时可再获取读锁，持有读锁时不能升级为写锁
+        boolean reenter(Object id, long key, boolean shared) {
+            int index = indexOf(id, key);
+            if (index < 0) {
+                return false;
             }
-            
-            // 缓存满，替换第一个位置（LRU简化）
-            keys[start] = key;
-            values[start] = count;
+            if (!shared && !entries[index].ownedBy(Thread.currentThread())) {
+                throw new IllegalMonitorStateException("Read lock cannot be upgraded");
+            }
+            values[index]++;
+            return true;
         }
         
-        // 记录锁释放，返回新的计数
-        int recordUnlock(Object key) {
-            int start = hash(key);
-            for (int i = 0; i < CACHE_SIZE; i++) {
-                int index = (start + i) & (CACHE_SIZE - 1);
-                
-                if (keys[index] == key) {
-                    int newCount = --values[index];
-                    if (newCount <= 0) {
-                        keys[index] = null;
-                        values[index] = 0;
-                    }
-                    return newCount;
-                }
-                
-                if (keys[index] == null) {
-                    break;
-                }
+        // 记录首次获取及持有的条目
+        void recordLock(Object id, long key, LockEntry entry, long acquiredAt) {
+            // 负载超过3/4时扩容
+            if ((size + 1) * 4 > values.length * 3) {
+                resize();
+            }
+            int mask = values.length - 1;
+            int index = spread(key) & mask;
+            while (values[index] != 0) {
+                index = (index + 1) & mask;
             }
-            return 0;
+            ids[index] = id;
+            keys[index] = key;
+            values[index] = 1;
+            entries[index] = entry;
+            since[index] = acquiredAt;
+            size++;
         }
         
-        // 获取重入计数
-        int getReentrantCount(Object key) {
-            int start = hash(key);
-            for (int i = 0; i < CACHE_SIZE; i++) {
-                int index = (start + i) & (CACHE_SIZE - 1);
-                
-                if (keys[index] == key) {
-                    return values[index];
+        // 记录锁释放，计数归零时返回需要释放的条目，否则返回null
+        LockEntry recordUnlock(Object id, long key) {
+            int index = indexOf(id, key);
+            if (index < 0) {
+                throw new IllegalMonitorStateException();
+            }
+            if (--values[index] > 0) {
+                return null;
+            }
+            LockEntry entry = entries[index];
+            releasedSince = since[index];
+            removeAt(index);
+            return entry;
+        }
+        
+        private int indexOf(Object id, long key) {
+            int mask = values.length - 1;
+            int index = spread(key) & mask;
+            while (values[index] != 0) {
+                if (keys[index] == key && (ids[index] == id
+                        || (equality && id != null && id.equals(ids[index])))) {
+                    return index;
                 }
-                
-                if (keys[index] == null) {
-                    return 0;
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+        
+        // 删除后将探测链上的后续条目前移，保证查找不中断
+        private void removeAt(int index) {
+            int mask = values.length - 1;
+            int hole = index;
+            int i = (index + 1) & mask;
+            while (values[i] != 0) {
+                int home = spread(keys[i]) & mask;
+                if (((i - home) & mask) >= ((i - hole) & mask)) {
+                    ids[hole] = ids[i];
+                    keys[hole] = keys[i];
+                    values[hole] = values[i];
+                    entries[hole] = entries[i];
+                    since[hole] = since[i];
+                    hole = i;
                 }
+                i = (i + 1) & mask;
             }
-            return 0;
+            ids[hole] = null;
+            keys[hole] = 0;
+            values[hole] = 0;
+            entries[hole] = null;
+            since[hole] = 0L;
+            size--;
         }
         
-        // 简单的哈希函数
-        private static int hash(Object key) {
-            return System.identityHashCode(key) & (CACHE_SIZE - 1);
+        private void resize() {
+            Object[] oldIds = ids;
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            LockEntry[] oldEntries = entries;
+            long[] oldSince = since;
+            int capacity = oldValues.length << 1;
+            ids = new Object[capacity];
+            keys = new long[capacity];
+            values = new int[capacity];
+            entries = new LockEntry[capacity];
+            since = new long[capacity];
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] != 0) {
+                    int index = spread(oldKeys[i]) & (capacity - 1);
+                    while (values[index] != 0) {
+                        index = (index + 1) & (capacity - 1);
+                    }
+                    ids[index] = oldIds[i];
+                    keys[index] = oldKeys[i];
+                    values[index] = oldValues[i];
+                    entries[index] = oldEntries[i];
+                    since[index] = oldSince[i];
+                }
+            }
         }
     }
     
     // ==================== 内存池 ====================
     
+    // 每段一个，只保存已回收且已移出哈希表的条目，因此不会把仍在使用的条目分配给其它ID。
+    // 调用方持有段锁
     private static final class EntryPool {
         private final LockEntry[] pool;
-        private final AtomicInteger top = new AtomicInteger(0);
+        private int size;
         
-        EntryPool(int size) {
-            pool = new LockEntry[size];
-            for (int i = 0; i < size; i++) {
-                pool[i] = new LockEntry(null);
-            }
+        EntryPool(int capacity) {
+            pool = new LockEntry[capacity];
         }
         
-        LockEntry acquire(Object id) {
-            int index = top.getAndIncrement() & (pool.length - 1);
-            LockEntry entry = pool[index];
-            entry.id = id;  // 重用对象
-            entry.state = LockEntry.FREE;
-            entry.owner = null;
-            entry.holdCount = 0;
-            entry.waiters = null;
-            entry.lastUsed = System.nanoTime();
+        LockEntry acquire(Object id, long key, long baseVersion) {
+            LockEntry entry;
+            if (size > 0) {
+                entry = pool[--size];
+                pool[size] = null;
+            } else {
+                entry = new LockEntry();
+            }
+            entry.reset(id, key, baseVersion);  // 重用对象
             return entry;
         }
         
         void release(LockEntry entry) {
-            // 简单的释放，实际可以更复杂
-            entry.id = null;
+            entry.id = null;  // 不再引用ID对象
+            if (size < pool.length) {
+                pool[size++] = entry;
+            }
+        }
+    }
+    
+    // ==================== 批量锁句柄 ====================
+    
+    /**
+     * {@link IdLock#lockAll}获取的一组锁，由获取的线程关闭，关闭时按获取的逆序释放
+     */
+    public static final class Handle implements AutoCloseable {
+        private final IdLock<?> lock;
+        private final Thread owner;
+        private final Object[] ids;
+        private final long[] keys;
+        private int size;
+        
+        Handle(IdLock<?> lock, int capacity) {
+            this.lock = lock;
+            this.owner = Thread.currentThread();
+            this.ids = new Object[capacity];
+            this.keys = new long[capacity];
+        }
+        
+        // 持有的锁数量，关闭后为0
+        public int size() {
+            return size;
+        }
+        
+        @Override
+        public void close() {
+            if (Thread.currentThread() != owner) {
+                throw new IllegalMonitorStateException();
+            }
+            releaseTo(0);
+        }
+        
+        void add(Object id, long key) {
+            ids[size] = id;
+            keys[size] = key;
+            size++;
+        }
+        
+        void releaseTo(int newSize) {
+            while (size > newSize) {
+                size--;
+                lock.release(ids[size], keys[size]);
+                ids[size] = null;
+            }
+        }
+    }
+    
+    // ==================== 基本类型ID ====================
+    
+    /**
+     * long类型ID的锁，按值比较，不装箱
+     */
+    public static final class OfLong {
+        private final IdLock<Object> lock;
+        
+        public OfLong() {
+            this(DEFAULT_CONCURRENCY);
+        }
+        
+        public OfLong(int concurrencyLevel) {
+            this.lock = new IdLock<>(concurrencyLevel, KEY_PRIMITIVE);
+        }
+        
+        public void lock(long id) throws InterruptedException {
+            lock.acquire(PRIMITIVE_ID, id);
+        }
+        
+        public boolean tryLock(long id) {
+            return lock.tryAcquire(PRIMITIVE_ID, id);
+        }
+        
+        public boolean tryLock(long id, long timeout, TimeUnit unit) throws InterruptedException {
+            return lock.tryAcquireNanos(PRIMITIVE_ID, id, unit.toNanos(timeout));
+        }
+        
+        public void unlock(long id) {
+            lock.release(PRIMITIVE_ID, id);
+        }
+        
+        public void readLock(long id) throws InterruptedException {
+            lock.acquireRead(PRIMITIVE_ID, id);
+        }
+        
+        public boolean tryReadLock(long id) {
+            return lock.tryAcquireRead(PRIMITIVE_ID, id);
+        }
+        
+        public boolean tryReadLock(long id, long timeout, TimeUnit unit)
+                throws InterruptedException {
+            return lock.tryAcquireReadNanos(PRIMITIVE_ID, id, unit.toNanos(timeout));
+        }
+        
+        public void unlockRead(long id) {
+            lock.release(PRIMITIVE_ID, id);
+        }
+        
+        public long tryOptimisticRead(long id) {
+            return lock.optimisticStamp(PRIMITIVE_ID, id);
+        }
+        
+        public boolean validate(long id, long stamp) {
+            return lock.validateStamp(PRIMITIVE_ID, id, stamp);
+        }
+        
+        public void enableStats(int topK) {
+            lock.enableStats(topK);
+        }
+        
+        public void disableStats() {
+            lock.disableStats();
+        }
+        
+        public Stats getStats() {
+            return lock.getStats();
+        }
+        
+        public Occupancy occupancy() {
+            return lock.occupancy();
+        }
+        
+        public Handle lockAll(long... ids) throws InterruptedException {
+            return lock.acquireAll(primitiveIds(ids.length), ids.clone(), false, 0L);
+        }
+        
+        public Handle tryLockAll(long[] ids, long timeout, TimeUnit unit)
+                throws InterruptedException {
+            return lock.acquireAll(primitiveIds(ids.length), ids.clone(), true,
+                unit.toNanos(timeout));
+        }
+    }
+    
+    /**
+     * int类型ID的锁，按值比较，不装箱
+     */
+    public static final class OfInt {
+        private final IdLock<Object> lock;
+        
+        public OfInt() {
+            this(DEFAULT_CONCURRENCY);
+        }
+        
+        public OfInt(int concurrencyLevel) {
+            this.lock = new IdLock<>(concurrencyLevel, KEY_PRIMITIVE);
+        }
+        
+        public void lock(int id) throws InterruptedException {
+            lock.acquire(PRIMITIVE_ID, id);
+        }
+        
+        public boolean tryLock(int id) {
+            return lock.tryAcquire(PRIMITIVE_ID, id);
+        }
+        
+        public boolean tryLock(int id, long timeout, TimeUnit unit) throws InterruptedException {
+            return lock.tryAcquireNanos(PRIMITIVE_ID, id, unit.toNanos(timeout));
+        }
+        
+        public void unlock(int id) {
+            lock.release(PRIMITIVE_ID, id);
+        }
+        
+        public void readLock(int id) throws InterruptedException {
+            lock.acquireRead(PRIMITIVE_ID, id);
+        }
+        
+        public boolean tryReadLock(int id) {
+            return lock.tryAcquireRead(PRIMITIVE_ID, id);
+        }
+        
+        public boolean tryReadLock(int id, long timeout, TimeUnit unit)
+                throws InterruptedException {
+            return lock.tryAcquireReadNanos(PRIMITIVE_ID, id, unit.toNanos(timeout));
+        }
+        
+        public void unlockRead(int id) {
+            lock.release(PRIMITIVE_ID, id);
+        }
+        
+        public long tryOptimisticRead(int id) {
+            return lock.optimisticStamp(PRIMITIVE_ID, id);
+        }
+        
+        public boolean validate(int id, long stamp) {
+            return lock.validateStamp(PRIMITIVE_ID, id, stamp);
+        }
+        
+        public void enableStats(int topK) {
+            lock.enableStats(topK);
+        }
+        
+        public void disableStats() {
+            lock.disableStats();
+        }
+        
+        public Stats getStats() {
+            return lock.getStats();
+        }
+        
+        public Occupancy occupancy() {
+            return lock.occupancy();
+        }
+        
+        public Handle lockAll(int... ids) throws InterruptedException {
+            return lock.acquireAll(primitiveIds(ids.length), toKeys(ids), false, 0L);
+        }
+        
+        public Handle tryLockAll(int[] ids, long timeout, TimeUnit unit)
+                throws InterruptedException {
+            return lock.acquireAll(primitiveIds(ids.length), toKeys(ids), true,
+                unit.toNanos(timeout));
+        }
+        
+        private static long[] toKeys(int[] ids) {
+            long[] keys = new long[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                keys[i] = ids[i];
+            }
+            return keys;
+        }
+    }
+    
+    // ==================== 占用统计 ====================
+    
+    /**
+     * 哈希表占用情况快照
+     */
+    public static final class Occupancy {
+        private final int segments;
+        private final long capacity;
+        private final long entries;
+        private final int maxSegmentEntries;
+        private final long pinned;
+        private final long pooled;
+        private final long resizes;
+        private final long reclaimed;
+        
+        Occupancy(int segments, long capacity, long entries, int maxSegmentEntries, long pinned,
+                long pooled, long resizes, long reclaimed) {
+            this.segments = segments;
+            this.capacity = capacity;
+            this.entries = entries;
+            this.maxSegmentEntries = maxSegmentEntries;
+            this.pinned = pinned;
+            this.pooled = pooled;
+            this.resizes = resizes;
+            this.reclaimed = reclaimed;
+        }
+        
+        public int getSegments() {
+            return segments;
+        }
+        
+        // 各段哈希表槽位总数
+        public long getCapacity() {
+            return capacity;
+        }
+        
+        // 表中条目数，包括未被使用、等待回收的条目
+        public long getEntries() {
+            return entries;
+        }
+        
+        public int getMaxSegmentEntries() {
+            return maxSegmentEntries;
+        }
+        
+        // 被持有或等待中的条目数
+        public long getPinned() {
+            return pinned;
+        }
+        
+        // 内存池中可重用的条目数
+        public long getPooled() {
+            return pooled;
+        }
+        
+        public long getResizes() {
+            return resizes;
+        }
+        
+        public long getReclaimed() {
+            return reclaimed;
+        }
+        
+        public double getLoadFactor() {
+            return capacity == 0 ? 0d : (double) entries / capacity;
+        }
+        
+        @Override
+        public String toString() {
+            return "Occupancy{segments=" + segments + ", capacity=" + capacity + ", entries="
+                + entries + ", maxSegmentEntries=" + maxSegmentEntries + ", pinned=" + pinned
+                + ", pooled=" + pooled + ", resizes=" + resizes + ", reclaimed=" + reclaimed + "}";
+        }
+    }
+    
+    // ==================== 锁统计 ====================
+    
+    /**
+     * 锁统计，由{@link IdLock#enableStats(int)}开启
+     * <p>
+     * 竞争：请求时锁已被持有（含非阻塞获取失败）；自旋获得：竞争后在自旋期间获得写锁；
+     * 进入等待：自旋后仍未获得，进入等待队列。等待时间只统计竞争后成功获取的请求，
+     * 持有时间从获得到完全释放（不含重入）
+     * </p>
+     */
+    public static final class Stats {
+        private static final int ACQUIRES = 0;
+        private static final int CONTENTIONS = 1;
+        private static final int SPIN_ACQUIRES = 2;
+        private static final int PARKS = 3;
+        private static final int TIMEOUTS = 4;
+        private static final int COUNTERS = 5;
+        
+        private final int segments;
+        private final AtomicLongArray counters;
+        private final LatencyHistogram waitTimes = new LatencyHistogram();
+        private final LatencyHistogram holdTimes = new LatencyHistogram();
+        private final HotIdSampler hotIds;
+        
+        Stats(int segments, int topK, boolean identity) {
+            this.segments = segments;
+            this.counters = new AtomicLongArray(segments * COUNTERS);
+            this.hotIds = new HotIdSampler(topK, identity);
+        }
+        
+        void recordAcquire(int segment) {
+            counters.incrementAndGet(segment * COUNTERS + ACQUIRES);
+        }
+        
+        void recordContention(int segment, Object id) {
+            counters.incrementAndGet(segment * COUNTERS + CONTENTIONS);
+            hotIds.record(id);
+        }
+        
+        void recordWait(int segment, Object id, long nanos) {
+            recordContention(segment, id);
+            waitTimes.record(nanos);
+        }
+        
+        void recordTimeout(int segment, Object id) {
+            recordContention(segment, id);
+            counters.incrementAndGet(segment * COUNTERS + TIMEOUTS);
+        }
+        
+        void recordSpinAcquire(int segment) {
+            counters.incrementAndGet(segment * COUNTERS + SPIN_ACQUIRES);
+        }
+        
+        void recordPark(int segment) {
+            counters.incrementAndGet(segment * COUNTERS + PARKS);
+        }
+        
+        void recordHold(long nanos) {
+            holdTimes.record(nanos);
+        }
+        
+        public int getSegments() {
+            return segments;
+        }
+        
+        public long getAcquires() {
+            return sum(ACQUIRES);
+        }
+        
+        public long getAcquires(int segment) {
+            return counters.get(segment * COUNTERS + ACQUIRES);
+        }
+        
+        public long getContentions() {
+            return sum(CONTENTIONS);
+        }
+        
+        public long getContentions(int segment) {
+            return counters.get(segment * COUNTERS + CONTENTIONS);
+        }
+        
+        public long getSpinAcquires() {
+            return sum(SPIN_ACQUIRES);
+        }
+        
+        public long getSpinAcquires(int segment) {
+            return counters.get(segment * COUNTERS + SPIN_ACQUIRES);
+        }
+        
+        public long getParks() {
+            return sum(PARKS);
+        }
+        
+        public long getParks(int segment) {
+            return counters.get(segment * COUNTERS + PARKS);
+        }
+        
+        public long getTimeouts() {
+            return sum(TIMEOUTS);
+        }
+        
+        public long getTimeouts(int segment) {
+            return counters.get(segment * COUNTERS + TIMEOUTS);
+        }
+        
+        public LatencyHistogram getWaitTimes() {
+            return waitTimes;
+        }
+        
+        public LatencyHistogram getHoldTimes() {
+            return holdTimes;
+        }
+        
+        /**
+         * 竞争次数最多的ID，按次数降序
+         */
+        public List<HotId> getHotIds() {
+            return hotIds.top();
+        }
+        
+        private long sum(int counter) {
+            long total = 0;
+            for (int i = 0; i < segments; i++) {
+                total += counters.get(i * COUNTERS + counter);
+            }
+            return total;
+        }
+        
+        @Override
+        public String toString() {
+            return "Stats{acquires=" + getAcquires() + ", contentions=" + getContentions()
+                + ", spinAcquires=" + getSpinAcquires() + ", parks=" + getParks() + ", timeouts="
+                + getTimeouts() + ", waitTimes=" + waitTimes + ", holdTimes=" + holdTimes
+                + ", hotIds=" + getHotIds() + "}";
+        }
+    }
+    
+    /**
+     * 热点ID及其竞争次数，count可能偏大，偏大的部分不超过error
+     */
+    public static final class HotId {
+        private final Object id;
+        private final long count;
+        private final long error;
+        
+        HotId(Object id, long count, long error) {
+            this.id = id;
+            this.count = count;
+            this.error = error;
+        }
+        
+        public Object getId() {
+            return id;
+        }
+        
+        public long getCount() {
+            return count;
+        }
+        
+        public long getError() {
+            return error;
+        }
+        
+        @Override
+        public String toString() {
+            return id + "=" + count;
+        }
+    }
+    
+    // Space-Saving算法：保留topK*4个计数器，已满时新ID替换计数最小的ID并继承其计数作为误差。
+    // 只在竞争路径上调用，使用同步
+    private static final class HotIdSampler {
+        private final int topK;
+        private final int capacity;
+        private final Map<Object, long[]> counters;     // id -> {count, error}
+        
+        HotIdSampler(int topK, boolean identity) {
+            this.topK = topK;
+            this.capacity = topK * 4;
+            this.counters = identity ? new IdentityHashMap<>() : new HashMap<>();
+        }
+        
+        synchronized void record(Object id) {
+            long[] counter = counters.get(id);
+            if (counter != null) {
+                counter[0]++;
+                return;
+            }
+            if (counters.size() < capacity) {
+                counters.put(id, new long[] { 1L, 0L });
+                return;
+            }
+            
+            Object minId = null;
+            long[] min = null;
+            for (Map.Entry<Object, long[]> entry : counters.entrySet()) {
+                if (min == null || entry.getValue()[0] < min[0]) {
+                    minId = entry.getKey();
+                    min = entry.getValue();
+                }
+            }
+            counters.remove(minId);
+            counters.put(id, new long[] { min[0] + 1, min[0] });
+        }
+        
+        synchronized List<HotId> top() {
+            List<HotId> list = new ArrayList<>(counters.size());
+            for (Map.Entry<Object, long[]> entry : counters.entrySet()) {
+                list.add(new HotId(entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+            }
+            list.sort((a, b) -> Long.compare(b.count, a.count));
+            return list.size() > topK ? new ArrayList<>(list.subList(0, topK)) : list;
         }
     }
     
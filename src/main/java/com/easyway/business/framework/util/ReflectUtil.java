@@ -98,9 +98,9 @@ public final class ReflectUtil {
         while (currentClass != null && currentClass != Object.class) {
             Field[] fields = currentClass.getDeclaredFields();
             
-            // 将当前类的字段放入映射（子类字段会覆盖父类同名字段）
+            // 将当前类的字段放入映射（子类先于父类收集，子类字段覆盖父类同名字段）
             for (Field field : fields) {
-                fieldMap.put(field.getName(), field);
+                fieldMap.putIfAbsent(field.getName(), field);
             }
             
             if (!includeParent) {
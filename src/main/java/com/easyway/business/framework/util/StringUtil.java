@@ -992,6 +992,45 @@ public class StringUtil {
             .append(str.substring(1)).toString();
     }
 
+    /**
+     * 将下划线分隔的列名转成驼峰属性名，引号被去掉。不含下划线且含有小写字母的名称视为属性名，保持不变
+     * 
+     * <pre>
+     * StringUtil.toCamelCase(null)           = null
+     * StringUtil.toCamelCase(&quot;user_name&quot;)  = &quot;userName&quot;
+     * StringUtil.toCamelCase(&quot;USER_ID&quot;)    = &quot;userId&quot;
+     * StringUtil.toCamelCase(&quot;ID&quot;)         = &quot;id&quot;
+     * StringUtil.toCamelCase(&quot;createTime&quot;) = &quot;createTime&quot;
+     * </pre>
+     * 
+     * @param column
+     *            列名
+     * 
+     * @return 驼峰属性名，如果原字符串为<code>null</code>，则返回<code>null</code>
+     */
+    public static String toCamelCase(String column) {
+        if (column == null) {
+            return null;
+        }
+        String name = column.replace("\"", "").replace("`", "");
+        if (name.indexOf('_') < 0 && !name.equals(name.toUpperCase())) {
+            return name;
+        }
+        name = name.toLowerCase();
+        StringBuilder builder = new StringBuilder(name.length());
+        boolean upper = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '_') {
+                upper = builder.length() > 0;
+            } else {
+                builder.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return builder.toString();
+    }
+
     /**
      * 反转字符串的大小写。
      * 
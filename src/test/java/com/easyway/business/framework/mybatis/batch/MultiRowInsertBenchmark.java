@@ -0,0 +1,194 @@
+package com.easyway.business.framework.mybatis.batch;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.easyway.business.framework.mybatis.BatchSupport.BatchBuilder;
+import com.easyway.business.framework.mybatis.SqlDialect;
+
+/**
+ * 多行插入基准：同一批记录分别以BATCH执行器（每条记录一次addBatch）和多行VALUES语句写入H2，对比耗时
+ * <p>
+ * transport=mem为进程内数据库，只比较语句解析、参数绑定的开销；transport=tcp经本机TCP连接访问，
+ * 包含网络往返，更接近生产环境。每次调用前清空表，调用后校验写入行数
+ * </p>
+ * <p>
+ * 运行：mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * -Dmdep.includeScope=test，然后 java -cp target/classes:target/test-classes:$(cat target/cp.txt)
+ * com.easyway.business.framework.mybatis.batch.MultiRowInsertBenchmark
+ * </p>
+ *
+ * @author xl.liu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MultiRowInsertBenchmark {
+
+    private static final String TABLE = "t_bench_row";
+
+    public interface RowMapper {
+        @Insert("insert into t_bench_row (id, user_name, amount, create_time) "
+                + "values (#{id}, #{userName}, #{amount}, #{createTime})")
+        int insert(Row row);
+    }
+
+    public static class Row {
+        private final long       id;
+        private final String     userName;
+        private final BigDecimal amount;
+        private final Timestamp  createTime;
+
+        public Row(long id, String userName, BigDecimal amount, Timestamp createTime) {
+            this.id = id;
+            this.userName = userName;
+            this.amount = amount;
+            this.createTime = createTime;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getUserName() {
+            return userName;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public Timestamp getCreateTime() {
+            return createTime;
+        }
+    }
+
+    @Param({ "mem", "tcp" })
+    private String transport;
+
+    @Param({ "10000" })
+    private int rows;
+
+    @Param({ "1000" })
+    private int batchSize;
+
+    // 多行插入单条语句的绑定参数上限，0为方言默认值（每条语句batchSize条记录）
+    @Param({ "0", "400" })
+    private int maxBindParams;
+
+    private Server            server;
+    private PooledDataSource  dataSource;
+    private SqlSessionFactory factory;
+    private List<Row>         data;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        String name = "bench" + System.nanoTime();
+        String url;
+        if ("tcp".equals(transport)) {
+            server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+            url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:" + name;
+        } else {
+            url = "jdbc:h2:mem:" + name;
+        }
+        dataSource = new PooledDataSource("org.h2.Driver", url + ";DB_CLOSE_DELAY=-1", "sa", "");
+        Configuration configuration = new Configuration(
+                new Environment("bench", new JdbcTransactionFactory(), dataSource));
+        configuration.addMapper(RowMapper.class);
+        factory = new SqlSessionFactoryBuilder().build(configuration);
+        execute("create table " + TABLE + " (id bigint primary key, user_name varchar(64), "
+                + "amount decimal(12, 2), create_time timestamp)");
+
+        data = new ArrayList<>(rows);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int i = 0; i < rows; i++) {
+            data.add(new Row(i, "user-" + i, BigDecimal.valueOf(i % 10000, 2), now));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void truncate() throws SQLException {
+        execute("truncate table " + TABLE);
+    }
+
+    @TearDown(Level.Invocation)
+    public void verify() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("select count(*) from " + TABLE)) {
+            rs.next();
+            if (rs.getLong(1) != rows) {
+                throw new IllegalStateException("Expected " + rows + " rows, found " + rs.getLong(1));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.forceCloseAll();
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Benchmark
+    public BatchResult batchExecutor() {
+        return BatchBuilder.with(factory).mapper(RowMapper.class, "insert").batchSize(batchSize)
+                .insert(data);
+    }
+
+    @Benchmark
+    public BatchResult multiRowValues() {
+        return BatchBuilder.with(factory)
+                .multiRowInsert(TABLE, "id", "user_name", "amount", "create_time")
+                .dialect(SqlDialect.H2).maxBindParams(maxBindParams).batchSize(batchSize).insert(data);
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(MultiRowInsertBenchmark.class.getSimpleName()).build()).run();
+    }
+}
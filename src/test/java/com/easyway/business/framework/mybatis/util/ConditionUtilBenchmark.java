@@ -0,0 +1,136 @@
+package com.easyway.business.framework.mybatis.util;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.easyway.business.framework.mybatis.annotion.ListValue;
+import com.easyway.business.framework.mybatis.annotion.SingleValue;
+import com.easyway.business.framework.mybatis.annotion.factory.AnnotationConditionFactory;
+import com.easyway.business.framework.mybatis.query.condition.Condition;
+
+/**
+ * 条件提取基准：同一查询对象分别以按类缓存的MethodHandle（{@link ConditionUtil#getConditions}）
+ * 和每次调用都反射遍历方法、读取注解的原实现提取条件，对比单次调用耗时
+ * <p>
+ * 运行：mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * -Dmdep.includeScope=test，然后 java -cp target/classes:target/test-classes:$(cat target/cp.txt)
+ * com.easyway.business.framework.mybatis.util.ConditionUtilBenchmark
+ * </p>
+ *
+ * @author xl.liu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConditionUtilBenchmark {
+
+    /**
+     * 四个条件属性及若干普通属性，与常见的查询对象相当
+     */
+    public static class UserQuery {
+        private String     userName = "alice";
+        private Integer    status   = 1;
+        private List<Long> deptIds  = Arrays.asList(10L, 20L, 30L);
+        private String     mobile   = "13800000000";
+        private int        pageSize = 20;
+        private String     orderCol = "id";
+
+        @SingleValue(column = "user_name")
+        public String getUserName() {
+            return userName;
+        }
+
+        @SingleValue(column = "status")
+        public Integer getStatus() {
+            return status;
+        }
+
+        @ListValue(column = "dept_id")
+        public List<Long> getDeptIds() {
+            return deptIds;
+        }
+
+        @SingleValue(column = "mobile", equal = "like")
+        public String getMobile() {
+            return mobile;
+        }
+
+        public int getPageSize() {
+            return pageSize;
+        }
+
+        public String getOrderCol() {
+            return orderCol;
+        }
+    }
+
+    private UserQuery query;
+
+    @Setup
+    public void setup() {
+        query = new UserQuery();
+        int expected = reflective(query).size();
+        if (expected != 4 || ConditionUtil.getConditions(query).size() != expected) {
+            throw new IllegalStateException("Extractors disagree with the reflective loop");
+        }
+    }
+
+    @Benchmark
+    public List<Condition> extractor() {
+        return ConditionUtil.getConditions(query);
+    }
+
+    @Benchmark
+    public List<Condition> reflective() {
+        return reflective(query);
+    }
+
+    /**
+     * 原实现：每次调用遍历getMethods()、读取注解并以Method.invoke取值
+     */
+    private static List<Condition> reflective(Object target) {
+        List<Condition> retList = new ArrayList<Condition>();
+        try {
+            for (Method method : target.getClass().getMethods()) {
+                Annotation[] annotations = method.getAnnotations();
+                if (method.getName().startsWith("get")
+                        && AnnotationConditionFactory.couldBuild(annotations)) {
+                    Object value = method.invoke(target);
+                    for (Annotation annotation : annotations) {
+                        Condition condition = AnnotationConditionFactory.buildCondition(annotation, value);
+                        if (condition != null) {
+                            retList.add(condition);
+                        }
+                    }
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return retList;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ConditionUtilBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,118 @@
+package com.easyway.business.framework.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * IdLock读写模式基准：少量热点ID上按读写比例混合访问，对比独占锁、读写锁及乐观读（失败时退回读锁）的吞吐
+ * <p>
+ * 运行：mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * -Dmdep.includeScope=test，然后 java -cp target/classes:target/test-classes:$(cat target/cp.txt)
+ * com.easyway.business.framework.util.IdLockReadWriteBenchmark
+ * </p>
+ *
+ * @author xl.liu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class IdLockReadWriteBenchmark {
+
+    // 每个值独占一个缓存行，避免伪共享干扰结果
+    private static final int STRIDE = 16;
+
+    @Param({ "16" })
+    private int ids;
+
+    @Param({ "5" })
+    private int writePercent;
+
+    private IdLock.OfLong lock;
+    private long[]        values;
+
+    @Setup
+    public void setup() {
+        lock = new IdLock.OfLong(64);
+        values = new long[ids * STRIDE];
+    }
+
+    @Benchmark
+    public long exclusive() throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int id = random.nextInt(ids);
+        boolean write = random.nextInt(100) < writePercent;
+        lock.lock(id);
+        try {
+            return write ? ++values[id * STRIDE] : values[id * STRIDE];
+        } finally {
+            lock.unlock(id);
+        }
+    }
+
+    @Benchmark
+    public long readWrite() throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int id = random.nextInt(ids);
+        if (random.nextInt(100) < writePercent) {
+            return write(id);
+        }
+        lock.readLock(id);
+        try {
+            return values[id * STRIDE];
+        } finally {
+            lock.unlockRead(id);
+        }
+    }
+
+    @Benchmark
+    public long optimistic() throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int id = random.nextInt(ids);
+        if (random.nextInt(100) < writePercent) {
+            return write(id);
+        }
+        long stamp = lock.tryOptimisticRead(id);
+        long value = values[id * STRIDE];
+        if (!lock.validate(id, stamp)) {
+            lock.readLock(id);
+            try {
+                value = values[id * STRIDE];
+            } finally {
+                lock.unlockRead(id);
+            }
+        }
+        return value;
+    }
+
+    private long write(int id) throws InterruptedException {
+        lock.lock(id);
+        try {
+            return ++values[id * STRIDE];
+        } finally {
+            lock.unlock(id);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(IdLockReadWriteBenchmark.class.getSimpleName()).build()).run();
+    }
+}
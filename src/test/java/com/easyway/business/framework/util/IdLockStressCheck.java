@@ -0,0 +1,288 @@
+package com.easyway.business.framework.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.easyway.business.framework.mybatis.batch.LatencyHistogram;
+
+/**
+ * IdLock并发压力检查：多线程对少量热点ID及大量一次性ID反复加锁，校验同一ID互斥、
+ * 值相等的不同实例互斥、重入及条目回收后的正确性，并校验等待、持有耗时直方图的亚微秒精度
+ * <p>
+ * 修改IdLock后运行：java -cp target/classes:target/test-classes
+ * com.easyway.business.framework.util.IdLockStressCheck，全部通过时退出码为0
+ * </p>
+ *
+ * @author xl.liu
+ */
+public class IdLockStressCheck {
+
+    private static final int  THREADS         = 16;
+    private static final int  HOT_KEYS        = 8;
+    private static final int  ITERATIONS      = 50000;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    // 按热点ID下标加锁、解锁，每次调用使用新的ID实例
+    private interface KeyLock {
+        void lock(int k) throws InterruptedException;
+
+        boolean tryLock(int k, boolean timed) throws InterruptedException;
+
+        void unlock(int k);
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean ok = true;
+
+        IdLock<String> strings = new IdLock<>(64, true);
+        ok &= check("String value equality", new KeyLock() {
+            public void lock(int k) throws InterruptedException {
+                strings.lock(new String("order-" + k));
+            }
+
+            public boolean tryLock(int k, boolean timed) throws InterruptedException {
+                String id = new String("order-" + k);
+                return timed ? strings.tryLock(id, 50, TimeUnit.MILLISECONDS) : strings.tryLock(id);
+            }
+
+            public void unlock(int k) {
+                strings.unlock(new String("order-" + k));
+            }
+        });
+
+        IdLock<Long> longs = new IdLock<>(64, true);
+        ok &= check("Long value equality", new KeyLock() {
+            public void lock(int k) throws InterruptedException {
+                longs.lock(newLong(k));
+            }
+
+            public boolean tryLock(int k, boolean timed) throws InterruptedException {
+                Long id = newLong(k);
+                return timed ? longs.tryLock(id, 50, TimeUnit.MILLISECONDS) : longs.tryLock(id);
+            }
+
+            public void unlock(int k) {
+                longs.unlock(newLong(k));
+            }
+        });
+
+        IdLock.OfLong ofLong = new IdLock.OfLong(64);
+        ok &= check("OfLong", new KeyLock() {
+            public void lock(int k) throws InterruptedException {
+                ofLong.lock(1L << 40 | k);
+            }
+
+            public boolean tryLock(int k, boolean timed) throws InterruptedException {
+                return timed ? ofLong.tryLock(1L << 40 | k, 50, TimeUnit.MILLISECONDS)
+                        : ofLong.tryLock(1L << 40 | k);
+            }
+
+            public void unlock(int k) {
+                ofLong.unlock(1L << 40 | k);
+            }
+        });
+
+        IdLock.OfInt ofInt = new IdLock.OfInt(64);
+        ok &= check("OfInt", new KeyLock() {
+            public void lock(int k) throws InterruptedException {
+                ofInt.lock(k);
+            }
+
+            public boolean tryLock(int k, boolean timed) throws InterruptedException {
+                return timed ? ofInt.tryLock(k, 50, TimeUnit.MILLISECONDS) : ofInt.tryLock(k);
+            }
+
+            public void unlock(int k) {
+                ofInt.unlock(k);
+            }
+        });
+
+        ok &= checkChurn();
+        ok &= checkHistogram();
+
+        System.out.println(ok ? "IdLock stress check passed" : "IdLock stress check FAILED");
+        System.exit(ok ? 0 : 1);
+    }
+
+    // 超出Long.valueOf的缓存范围，每次返回值相等的不同实例
+    private static Long newLong(int k) {
+        return Long.valueOf(100000L + k);
+    }
+
+    /**
+     * 热点ID互斥：锁内以非原子方式累加计数器，互斥正确时计数器之和等于获取次数
+     */
+    private static boolean check(String name, KeyLock lock) throws Exception {
+        AtomicInteger[] inside = new AtomicInteger[HOT_KEYS];
+        long[] counters = new long[HOT_KEYS];
+        for (int i = 0; i < HOT_KEYS; i++) {
+            inside[i] = new AtomicInteger();
+        }
+        AtomicLong violations = new AtomicLong();
+        AtomicLong acquired = new AtomicLong();
+
+        boolean finished = runThreads(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < ITERATIONS; i++) {
+                int k = random.nextInt(HOT_KEYS);
+                int mode = random.nextInt(3);
+                if (mode == 0) {
+                    lock.lock(k);
+                } else if (!lock.tryLock(k, mode == 2)) {
+                    continue;
+                }
+                boolean reenter = (i & 15) == 0;
+                if (reenter) {
+                    lock.lock(k);
+                }
+                try {
+                    if (inside[k].incrementAndGet() != 1) {
+                        violations.incrementAndGet();
+                    }
+                    counters[k]++;
+                    acquired.incrementAndGet();
+                    inside[k].decrementAndGet();
+                } finally {
+                    if (reenter) {
+                        lock.unlock(k);
+                    }
+                    lock.unlock(k);
+                }
+            }
+            return null;
+        });
+
+        long sum = 0;
+        for (long counter : counters) {
+            sum += counter;
+        }
+        boolean ok = finished && violations.get() == 0 && sum == acquired.get();
+        System.out.printf("%-22s %s acquired=%d sum=%d violations=%d%n", name, ok ? "OK  " : "FAIL",
+                acquired.get(), sum, violations.get());
+        return ok;
+    }
+
+    /**
+     * 大量一次性ID与少量热点ID混合，条目反复回收、复用及扩容后仍互斥，结束后不再固定任何条目
+     */
+    private static boolean checkChurn() throws Exception {
+        IdLock<Long> lock = new IdLock<>(16, true);
+        long[] counters = new long[HOT_KEYS];
+        AtomicLong hot = new AtomicLong();
+
+        boolean finished = runThreads(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < ITERATIONS * 4; i++) {
+                boolean isHot = (i & 7) == 0;
+                int k = random.nextInt(HOT_KEYS);
+                Long id = isHot ? newLong(k) : Long.valueOf(random.nextLong(1L << 20, 1L << 50));
+                lock.lock(id);
+                try {
+                    if (isHot) {
+                        counters[k]++;
+                        hot.incrementAndGet();
+                    }
+                } finally {
+                    lock.unlock(id);
+                }
+            }
+            return null;
+        });
+
+        long sum = 0;
+        for (long counter : counters) {
+            sum += counter;
+        }
+        IdLock.Occupancy occupancy = lock.occupancy();
+        boolean ok = finished && sum == hot.get() && occupancy.getPinned() == 0;
+        System.out.printf("%-22s %s hot=%d sum=%d %s%n", "Churn and reclaim", ok ? "OK  " : "FAIL",
+                hot.get(), sum, occupancy);
+        return ok;
+    }
+
+    /**
+     * 锁持有、自旋等待多在1微秒以内：亚微秒及1到4微秒的样本，百分位须落在[样本值, 样本值*1.25]
+     */
+    private static boolean checkHistogram() throws InterruptedException {
+        long[] samples = { 1, 3, 40, 120, 500, 999, 1000, 1500, 2300, 3999, 4001 };
+        boolean ok = true;
+        StringBuilder failures = new StringBuilder();
+        for (long sample : samples) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(sample);
+            long p50 = histogram.getPercentileNanos(50);
+            if (p50 < sample || p50 > sample + sample / 4) {
+                ok = false;
+                failures.append(' ').append(sample).append("->").append(p50);
+            }
+        }
+
+        // 混合分布：900个200ns、100个3000ns，p50应在亚微秒区间、p99应在微秒区间
+        LatencyHistogram mixed = new LatencyHistogram();
+        for (int i = 0; i < 1000; i++) {
+            mixed.record(i < 900 ? 200L : 3000L);
+        }
+        long p50 = mixed.getPercentileNanos(50);
+        long p99 = mixed.getPercentileNanos(99);
+        if (p50 < 200L || p50 > 250L || p99 < 3000L || p99 > 3750L) {
+            ok = false;
+            failures.append(" mixed p50=").append(p50).append(" p99=").append(p99);
+        }
+
+        // IdLock统计：无竞争的短持有也应记录到非零的持有耗时
+        IdLock<Long> lock = new IdLock<>(16, true);
+        lock.enableStats(8);
+        IdLock.Stats stats = lock.getStats();
+        for (int i = 0; i < 1000; i++) {
+            Long id = newLong(i & 7);
+            lock.lock(id);
+            lock.unlock(id);
+        }
+        long holdP50 = stats.getHoldTimes().getPercentileNanos(50);
+        if (stats.getHoldTimes().getCount() != 1000 || holdP50 == 0L) {
+            ok = false;
+            failures.append(" holdCount=").append(stats.getHoldTimes().getCount()).append(" holdP50=")
+                    .append(holdP50);
+        }
+
+        System.out.printf("%-22s %s%s%n", "Histogram resolution", ok ? "OK  " : "FAIL", failures);
+        return ok;
+    }
+
+    private interface Task {
+        Object run() throws Exception;
+    }
+
+    /**
+     * @return 全部线程在超时前结束
+     */
+    private static boolean runThreads(Task task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Future<?>[] futures = new Future<?>[THREADS];
+            for (int i = 0; i < THREADS; i++) {
+                futures[i] = executor.submit(task::run);
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+            for (Future<?> future : futures) {
+                future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+            return true;
+        } catch (TimeoutException e) {
+            System.out.println("Timed out, possible lost wake-up or deadlock");
+            return false;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}